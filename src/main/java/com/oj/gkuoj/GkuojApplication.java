@@ -3,6 +3,7 @@ package com.oj.gkuoj;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -11,6 +12,7 @@ import java.util.concurrent.Callable;
 @SpringBootApplication
 @MapperScan("com.oj.gkuoj.dao")
 @EnableTransactionManagement
+@EnableScheduling
 public class GkuojApplication {
 
     public static void main(String[] args) {
@@ -23,6 +23,18 @@ public class CommonConst {
     }
 
 
+    public interface CompetitionRule {
+        /**
+         * OI 赛制:各题最高分之和
+         */
+        Integer OI = 1;
+        /**
+         * ACM 赛制:通过题数 + 罚时
+         */
+        Integer ACM = 2;
+    }
+
+
     public interface ProblemUserStatus {
         /**
          * 尝试中
@@ -34,4 +46,32 @@ public class CommonConst {
         Integer PASSED = 2;
     }
 
+
+    public interface OutboxStatus {
+        /**
+         * 未投递
+         */
+        Integer UNSENT = 0;
+        /**
+         * 已投递
+         */
+        Integer SENT = 1;
+        /**
+         * 投递中,已被某个节点认领
+         */
+        Integer SENDING = 2;
+    }
+
+
+    public interface UpType {
+        /**
+         * 帖子
+         */
+        Integer BLOG = 0;
+        /**
+         * 帖子评论
+         */
+        Integer BLOG_COMMENT = 1;
+    }
+
 }
@@ -0,0 +1,43 @@
+package com.oj.gkuoj.common;
+
+/**
+ * 判题优先级:进行中的比赛 > 练习
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午7:40
+ */
+public enum JudgePriorityEnum {
+
+    CONTEST(1, "CONTEST"),
+
+    PRACTICE(3, "PRACTICE");
+
+    JudgePriorityEnum(Integer level, String tag) {
+        this.level = level;
+        this.tag = tag;
+    }
+
+    private Integer level;
+
+    /**
+     * rocketMQ 消息 tag,也是该优先级 topic 的配置名(rocketmq.priority-topic.小写 tag)
+     */
+    private String tag;
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public static JudgePriorityEnum getByLevel(Integer level) {
+        for (JudgePriorityEnum priority : JudgePriorityEnum.values()) {
+            if (priority.getLevel().equals(level)) {
+                return priority;
+            }
+        }
+        return PRACTICE;
+    }
+}
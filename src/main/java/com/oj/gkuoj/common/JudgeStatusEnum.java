@@ -52,6 +52,19 @@ public enum JudgeStatusEnum {
     }
 
 
+    /**
+     * 是否为最终结果(不再变化)
+     *
+     * @param status
+     * @return
+     */
+    public static boolean isFinal(Integer status) {
+        return ACCEPTED.status.equals(status) || COMPILE_ERROR.status.equals(status)
+                || PRESENTATION_ERROR.status.equals(status) || RUNTIME_ERROR.status.equals(status)
+                || TIME_LIMIT_EXCEEDED.status.equals(status) || MEMORY_LIMIT_EXCEEDED.status.equals(status)
+                || WRONG_ANSWER.status.equals(status);
+    }
+
     public static JudgeStatusEnum getStatusConst(Integer status) {
         JudgeStatusEnum[] statusConstArray = JudgeStatusEnum.values();
         for (JudgeStatusEnum statusConst : statusConstArray) {
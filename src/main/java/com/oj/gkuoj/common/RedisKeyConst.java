@@ -0,0 +1,139 @@
+package com.oj.gkuoj.common;
+
+/**
+ * redis 缓存 key
+ *
+ * @author m969130721@163.com
+ * @date 19-3-24 上午10:12
+ */
+public final class RedisKeyConst {
+
+    public interface KeyPrefix {
+        /**
+         * 测评实时状态 hash,后接 runNum
+         */
+        String RUN_STATUS = "RUN_STATUS_";
+
+        /**
+         * 提交限流令牌桶:用户,后接 userId
+         */
+        String SUBMIT_LIMIT_USER = "SUBMIT_LIMIT_USER_";
+
+        /**
+         * 提交限流令牌桶:比赛,后接 compId
+         */
+        String SUBMIT_LIMIT_COMPETITION = "SUBMIT_LIMIT_COMPETITION_";
+
+        /**
+         * 提交限流令牌桶:全局
+         */
+        String SUBMIT_LIMIT_GLOBAL = "SUBMIT_LIMIT_GLOBAL";
+
+        /**
+         * 比赛榜单,后接 compId:zset 排名,_U{userId} 用户各题 hash,_FIRST 一血 hash,_DONE 已计入的 problem_result
+         */
+        String SCOREBOARD = "SCOREBOARD_";
+
+        /**
+         * 用户尝试过的题目 bitmap,后接 userId
+         */
+        String PROBLEM_USER_TRIED = "PROBLEM_USER_TRIED_";
+
+        /**
+         * 用户通过的题目 bitmap,后接 userId
+         */
+        String PROBLEM_USER_PASSED = "PROBLEM_USER_PASSED_";
+
+        /**
+         * 题面版本号 hash,field 为 problemId,题目保存或删除时加一
+         */
+        String PROBLEM_STATEMENT_VERSION = "PROBLEM_STATEMENT_VERSION";
+
+        /**
+         * 题目列表索引版本号,题目或标签变更时加一,各实例比对后重建
+         */
+        String PROBLEM_CATALOG_VERSION = "PROBLEM_CATALOG_VERSION";
+
+        /**
+         * 用户排名/昵称索引版本号,用户变更时加一
+         */
+        String USER_RANK_VERSION = "USER_RANK_VERSION";
+
+        /**
+         * 用户排名/昵称变更记录 zset,member 为 userId,score 为变更时的版本号,各实例按版本号增量读取
+         */
+        String USER_RANK_CHANGE = "USER_RANK_CHANGE";
+
+        /**
+         * 变更记录已删除到的版本号,实例版本号落后于此时全量重建
+         */
+        String USER_RANK_TRIM = "USER_RANK_TRIM";
+
+        /**
+         * 帖子浏览数待写回 hash,field 为 blogId
+         */
+        String BLOG_VIEW_PENDING = "BLOG_VIEW_PENDING";
+
+        /**
+         * 帖子浏览数写回中 hash,写回成功后删除
+         */
+        String BLOG_VIEW_FLUSHING = "BLOG_VIEW_FLUSHING";
+
+        /**
+         * 帖子浏览数写回锁
+         */
+        String BLOG_VIEW_FLUSH_LOCK = "BLOG_VIEW_FLUSH_LOCK";
+
+        /**
+         * 帖子浏览去重,后接 blogId_访客
+         */
+        String BLOG_VIEW_SEEN = "BLOG_VIEW_SEEN_";
+
+        /**
+         * 点赞用户集合,后接 type_typeId
+         */
+        String UP = "UP_";
+
+        /**
+         * 点赞对象版本号,后接 type_typeId,每次点赞切换加一,对账覆盖集合前比对
+         */
+        String UP_VERSION = "UP_VERSION_";
+
+        /**
+         * 点赞待写回 hash,field 为 type:typeId:userId,value 为点赞状态 1/0
+         */
+        String UP_PENDING = "UP_PENDING";
+
+        /**
+         * 点赞写回中 hash
+         */
+        String UP_FLUSHING = "UP_FLUSHING";
+
+        /**
+         * 点赞写回锁
+         */
+        String UP_FLUSH_LOCK = "UP_FLUSH_LOCK";
+
+        /**
+         * 待对账的点赞对象集合,member 为 type_typeId
+         */
+        String UP_RECONCILE = "UP_RECONCILE";
+
+        /**
+         * 热门帖子 zset,member 为 blogId,score 为随时间衰减的热度
+         */
+        String BLOG_HOT = "BLOG_HOT";
+
+        /**
+         * 热门帖子上次衰减时间(ms),不存在时从 mysql 初始化热度
+         */
+        String BLOG_HOT_DECAY_AT = "BLOG_HOT_DECAY_AT";
+
+        /**
+         * 测评状态发布频道,各节点订阅后推送给本节点上的 SSE 连接
+         */
+        String JUDGE_STATUS_CHANNEL = "JUDGE_STATUS_CHANNEL";
+
+    }
+
+}
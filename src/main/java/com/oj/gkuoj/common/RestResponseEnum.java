@@ -42,6 +42,9 @@ public enum RestResponseEnum {
     //比赛报名密钥错误
     COMPETITION_PASSWORD_ERROR(463, "比赛报名密码错误"),
 
+    //提交过于频繁
+    SUBMIT_RATE_LIMITED_ERROR(464, "提交过于频繁,请稍后再试"),
+
 
 
     //token校验失败
@@ -87,7 +90,10 @@ public enum RestResponseEnum {
     NAME_REPEATED_ERROR(713, "昵称重复错误"),
 
     //手机重复错误
-    PHONE_REPEATED_ERROR(714, "手机重复错误");
+    PHONE_REPEATED_ERROR(714, "手机重复错误"),
+
+    //判题队列已满
+    JUDGE_QUEUE_FULL_ERROR(715, "判题队列已满,请稍后再试");
 
     private Integer status;
 
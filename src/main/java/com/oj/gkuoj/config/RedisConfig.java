@@ -3,12 +3,16 @@ package com.oj.gkuoj.config;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.consumer.JudgeStatusListener;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -48,5 +52,20 @@ public class RedisConfig {
 
     }
 
+    /**
+     * 测评状态频道订阅,判题结果由处理节点发布,所有节点推送给各自的 SSE 连接
+     * @param redisConnectionFactory
+     * @param judgeStatusListener
+     * @return
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       JudgeStatusListener judgeStatusListener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(judgeStatusListener, new ChannelTopic(RedisKeyConst.KeyPrefix.JUDGE_STATUS_CHANNEL));
+        return container;
+    }
+
 
 }
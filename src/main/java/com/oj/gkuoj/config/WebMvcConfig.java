@@ -1,5 +1,10 @@
 package com.oj.gkuoj.config;
 
+import com.oj.gkuoj.config.filter.ResponseSizeFilter;
+import com.oj.gkuoj.service.ResponseSizeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.*;
 
@@ -10,6 +15,21 @@ import org.springframework.web.servlet.config.annotation.*;
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    @Value("${project.metrics.response-size.url-patterns:/problem/listProblem2Page,/backend/problem/listProblem2Page}")
+    private String[] responseSizeUrlPatterns;
+
+    /**
+     * 统计指定接口的响应体大小
+     * @param responseSizeService
+     * @return
+     */
+    @Bean
+    public FilterRegistrationBean<ResponseSizeFilter> responseSizeFilter(ResponseSizeService responseSizeService) {
+        FilterRegistrationBean<ResponseSizeFilter> registrationBean =
+                new FilterRegistrationBean<>(new ResponseSizeFilter(responseSizeService));
+        registrationBean.addUrlPatterns(responseSizeUrlPatterns);
+        return registrationBean;
+    }
 
 
     /*@Override
@@ -0,0 +1,79 @@
+package com.oj.gkuoj.consumer;
+
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.service.JudgeResultService;
+import com.oj.gkuoj.utils.JsonUtil;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.protocol.heartbeat.MessageModel;
+import org.apache.rocketmq.remoting.common.RemotingHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * 接收判题机上报的进度,集群模式:每条进度只由一个 web 节点处理(入库、榜单、计数),处理失败由 broker 重投
+ * SSE 推送经 redis 频道发布到所有节点,见 JudgeStatusListener
+ *
+ * @author m969130721@163.com
+ * @date 19-3-23 下午3:05
+ */
+@Component
+@ConditionalOnProperty(name = "judge.transport", havingValue = "rocketmq", matchIfMissing = true)
+public class JudgeResultConsumer {
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JudgeResultService judgeResultService;
+
+    private DefaultMQPushConsumer consumer;
+
+    private Logger logger = LoggerFactory.getLogger(JudgeResultConsumer.class);
+
+    @PostConstruct
+    private void initMQConsumer() {
+        consumer = new DefaultMQPushConsumer(environment.getProperty("rocketmq.consumer.group"));
+        consumer.setNamesrvAddr(environment.getProperty("rocketmq.nameserver"));
+        consumer.setMessageModel(MessageModel.CLUSTERING);
+        //逐条确认,一条失败只重投这一条
+        consumer.setConsumeMessageBatchMaxSize(1);
+        consumer.registerMessageListener((MessageListenerConcurrently) (messageList, context) -> {
+            for (MessageExt message : messageList) {
+                try {
+                    String body = new String(message.getBody(), RemotingHelper.DEFAULT_CHARSET);
+                    judgeResultService.report(JsonUtil.string2Obj(body, ProblemResultSubmitVO.class));
+                } catch (Exception e) {
+                    logger.error("判题结果处理异常,稍后重投,msgId:{},reconsumeTimes:{}", message.getMsgId(),
+                            message.getReconsumeTimes(), e);
+                    return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+                }
+            }
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        });
+        try {
+            consumer.subscribe(environment.getProperty("rocketmq.result-topic"), "*");
+            consumer.start();
+        } catch (MQClientException e) {
+            logger.error("判题结果消费端初始化失败,{}", e.getErrorMessage());
+        }
+    }
+
+    @PreDestroy
+    private void shutdownMQConsumer() {
+        if (consumer != null) {
+            consumer.shutdown();
+        }
+    }
+
+}
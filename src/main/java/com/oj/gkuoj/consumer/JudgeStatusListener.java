@@ -0,0 +1,34 @@
+package com.oj.gkuoj.consumer;
+
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.service.JudgeStatusPushService;
+import com.oj.gkuoj.utils.JsonUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 订阅测评状态频道,每个节点都收到,推送给本节点上的 SSE 连接
+ * 只做推送,入库等写操作由 JudgeResultConsumer 集群消费时执行一次
+ *
+ * @author m969130721@163.com
+ * @date 19-3-31 上午10:20
+ */
+@Component
+public class JudgeStatusListener implements MessageListener {
+
+    @Autowired
+    private JudgeStatusPushService judgeStatusPushService;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ProblemResultSubmitVO progress = JsonUtil.string2Obj(new String(message.getBody(), StandardCharsets.UTF_8),
+                ProblemResultSubmitVO.class);
+        if (progress != null && progress.getRunNum() != null) {
+            judgeStatusPushService.publish(progress);
+        }
+    }
+}
@@ -5,7 +5,9 @@ import com.oj.gkuoj.response.BlogDetailVO;
 import com.oj.gkuoj.response.BlogVO;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public interface BlogMapper {
     int deleteByPrimaryKey(Integer id);
@@ -24,10 +26,38 @@ public interface BlogMapper {
 
     BlogDetailVO getBlogDetailVO(Integer blogId);
 
-    int updateViewCountIncrease(Integer blogId);
+    /**
+     * 浏览数增量批量写回
+     * @param viewCountMap blogId -> 增加的浏览数
+     * @return
+     */
+    int updateViewCountByDelta(@Param("viewCountMap") Map<Integer, Long> viewCountMap);
+
+    /**
+     * 重算回复数和最后回复时间
+     * @param blogId
+     * @return
+     */
+    int updateReplyStat(Integer blogId);
+
+    /**
+     * 重算点赞数
+     * @param blogIds
+     * @return
+     */
+    int updateUpCount(@Param("blogIds") List<Integer> blogIds);
 
     List<BlogVO> listHotBlogVO(Integer pageSize);
 
+    List<BlogVO> listBlogVOByIds(@Param("blogIds") List<Integer> blogIds);
+
+    /**
+     * 发布或最后回复在该时间之后的帖子,热度初始化用
+     * @param time
+     * @return
+     */
+    List<BlogVO> listActiveBlogVO(@Param("time") Date time);
+
     List<BlogVO> listLastCommentBlogVO(Integer pageSize);
 
     List<BlogVO> listNoticeBlogVO(Integer pageSize);
@@ -1,5 +1,6 @@
 package com.oj.gkuoj.dao;
 
+import com.oj.gkuoj.dto.VerdictCountDelta;
 import com.oj.gkuoj.entity.CompetitionProblem;
 import com.oj.gkuoj.response.CompetitionProblemVO;
 import org.apache.ibatis.annotations.Param;
@@ -22,4 +23,13 @@ public interface CompetitionProblemMapper {
     List<CompetitionProblemVO> listVOByCompetitionId(Integer competitionId);
 
     Integer getScoreByCompIdProblemId(@Param("compId") Integer compId, @Param("problemId")  Integer problemId);
+
+    List<CompetitionProblem> listScoreByCompId(Integer compId);
+
+    /**
+     * 判题计数增量批量回写
+     * @param deltaList
+     * @return
+     */
+    int updateCountByDelta(List<VerdictCountDelta> deltaList);
 }
\ No newline at end of file
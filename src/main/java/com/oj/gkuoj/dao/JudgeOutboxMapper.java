@@ -0,0 +1,27 @@
+package com.oj.gkuoj.dao;
+
+import com.oj.gkuoj.entity.JudgeOutbox;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+public interface JudgeOutboxMapper {
+
+    int insertSelective(JudgeOutbox record);
+
+    /**
+     * 按 (sort_key, id) 顺序把最多 limit 条未投递记录标记为投递中并写入 owner,一条 update 完成,节点间不会重复认领
+     */
+    int claim(@Param("owner") String owner, @Param("limit") Integer limit);
+
+    List<JudgeOutbox> listByOwner(@Param("owner") String owner);
+
+    int updateStatusByIds(@Param("ids") List<Integer> ids, @Param("owner") String owner, @Param("status") Integer status);
+
+    /**
+     * 认领超过 seconds 秒仍未完成(节点宕机)的记录放回未投递
+     */
+    int releaseSendingBefore(@Param("seconds") Integer seconds);
+
+    int deleteByStatusBefore(@Param("status") Integer status, @Param("hours") Integer hours);
+}
@@ -1,10 +1,12 @@
 package com.oj.gkuoj.dao;
 
+import com.oj.gkuoj.dto.VerdictCountDelta;
 import com.oj.gkuoj.entity.Problem;
 import com.oj.gkuoj.response.ProblemDetailVO;
 import com.oj.gkuoj.response.ProblemVO;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Date;
 import java.util.List;
 
 public interface ProblemMapper {
@@ -20,20 +22,26 @@ public interface ProblemMapper {
 
     int updateByPrimaryKey(Problem record);
 
-    /**
-     * 根据题目Id 随机返回推荐题目
-     * @param problemId
-     * @param row
-     * @return
-     */
-    List<Problem> listSuggestProblem(@Param("problemId") Integer problemId, @Param("row") int row);
-
-    Integer countRandomProblemId();
-
     List<ProblemVO> listAll2VO(@Param("sort") Integer sort, @Param("keyword") String keyword,
                                @Param("level") Integer level, @Param("tagIdsList") List<Integer> tagIdsList);
 
 
     ProblemDetailVO getDetailVOById(Integer problemId);
 
+    /**
+     * 判题计数增量批量回写
+     * @param deltaList
+     * @return
+     */
+    int updateCountByDelta(List<VerdictCountDelta> deltaList);
+
+    /**
+     * 时间、内存限制最后修改时间,从未修改过返回 null
+     * @param id
+     * @return
+     */
+    Date getLimitUpdateTime(Integer id);
+
+    int updateLimitUpdateTime(Integer id);
+
 }
\ No newline at end of file
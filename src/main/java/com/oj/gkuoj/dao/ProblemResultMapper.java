@@ -5,8 +5,10 @@ import com.oj.gkuoj.response.ProblemResultCompetitionVO;
 import com.oj.gkuoj.response.ProblemResultDetailVO;
 import com.oj.gkuoj.response.ProblemResultSubmitVO;
 import com.oj.gkuoj.response.ProblemResultVO;
+import com.oj.gkuoj.response.ProblemVO;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Date;
 import java.util.List;
 
 public interface ProblemResultMapper {
@@ -25,15 +27,48 @@ public interface ProblemResultMapper {
     List<ProblemResultVO> listProblemResult(@Param("problemId") Integer problemId, @Param("name")String name,
                                             @Param("type") String type, @Param("status") Integer status);
 
-    int countUserIdProblemIdByStatus(@Param("userId")Integer userId,@Param("problemId")Integer problemId,@Param("status")Integer status);
+    /**
+     * 游标翻页,取 (cursorTime, cursorId) 之后的 limit 条,游标为空时从最新开始
+     */
+    List<ProblemResultVO> listProblemResultByCursor(@Param("problemId") Integer problemId, @Param("name") String name,
+                                                    @Param("type") String type, @Param("status") Integer status,
+                                                    @Param("cursorTime") Date cursorTime, @Param("cursorId") Integer cursorId,
+                                                    @Param("limit") Integer limit);
 
-    int countUserIdProblemId(@Param("userId")Integer userId,@Param("problemId")Integer problemId);
+    List<ProblemVO> listProblemUserStatus(@Param("userId") Integer userId, @Param("problemIds") List<Integer> problemIds);
 
     ProblemResultSubmitVO getByRunNum2SubmitVO(String runNum);
 
+    /**
+     * 按 (update_time, id) 升序分批取通过记录(id, user_id, problem_id, update_time)
+     * @param lastTime 上一批最后一条的 update_time,为空时从头读取
+     * @param lastId 上一批最后一条的 id
+     * @param limit
+     * @return
+     */
+    List<ProblemResultSubmitVO> listAcceptedAfterUpdateTime(@Param("lastTime") Date lastTime,
+                                                            @Param("lastId") Integer lastId,
+                                                            @Param("limit") Integer limit);
+
     ProblemResultDetailVO getById2DetailVO(Integer problemResultId);
 
     List<ProblemResultCompetitionVO> listProblemResultCompetitionVO2Page(@Param("compId") Integer compId,@Param("userId") Integer userId);
 
+    ProblemResult getLastJudgedBySourceHash(@Param("problemId") Integer problemId, @Param("type") String type,
+                                            @Param("compId") Integer compId, @Param("sourceHash") String sourceHash);
+
+    int updateScoreByRunNum(String runNum);
+
+    /**
+     * 把提交标记为已计数,只有第一次调用返回 1
+     * @param runNum
+     * @return 更新行数
+     */
+    int updateCountedByRunNum(String runNum);
+
+    ProblemResultCompetitionVO getScoreboardVOByRunNum(String runNum);
+
+    List<ProblemResultCompetitionVO> listScoreboardVOByCompId(Integer compId);
+
     Integer getTotalScoreById(@Param("userId") Integer userId,@Param("compId") Integer compId);
 }
\ No newline at end of file
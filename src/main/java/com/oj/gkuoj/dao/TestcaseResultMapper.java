@@ -1,6 +1,8 @@
 package com.oj.gkuoj.dao;
 
 import com.oj.gkuoj.entity.TestcaseResult;
+import com.oj.gkuoj.response.ProblemResultCompetitionVO;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 
@@ -18,4 +20,9 @@ public interface TestcaseResultMapper {
     int updateByPrimaryKey(TestcaseResult record);
 
     List<TestcaseResult> listByProblemResultId(Integer problemResultId);
+
+    List<ProblemResultCompetitionVO> listAcCountByProblemResultIds(@Param("problemResultIds") List<Integer> problemResultIds);
+
+    int copyByProblemResultId(@Param("fromProblemResultId") Integer fromProblemResultId,
+                              @Param("toProblemResultId") Integer toProblemResultId);
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.oj.gkuoj.entity.Up;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.security.core.parameters.P;
 
+import java.util.List;
+
 public interface UpMapper {
     int deleteByPrimaryKey(Integer id);
 
@@ -17,11 +19,18 @@ public interface UpMapper {
 
     int updateByPrimaryKey(Up record);
 
-    Up getByBlogIdUserId(@Param("blogId") Integer blogId,@Param("userId") Integer userId);
+    int countByTypeId(@Param("type") Integer type, @Param("typeId") Integer typeId);
 
-    Up getByBlogCommentIdUserId(@Param("blogCommentId") Integer blogCommentId,@Param("userId") Integer userId);
+    List<Integer> listUserIdByTypeId(@Param("type") Integer type, @Param("typeId") Integer typeId);
 
-    int countBlogCommentById(Integer blogCommentId);
+    /**
+     * typeIds 中该用户已点赞的
+     */
+    List<Integer> listUpTypeIdByUserId(@Param("type") Integer type, @Param("typeIds") List<Integer> typeIds,
+                                       @Param("userId") Integer userId);
 
-    int countBlogById(Integer blogId);
+    /**
+     * 按 (type, type_id, user_id) 批量插入或更新点赞状态
+     */
+    int upsertStatusBatch(@Param("upList") List<Up> upList);
 }
\ No newline at end of file
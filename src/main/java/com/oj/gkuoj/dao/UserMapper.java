@@ -1,5 +1,6 @@
 package com.oj.gkuoj.dao;
 
+import com.oj.gkuoj.dto.VerdictCountDelta;
 import com.oj.gkuoj.entity.User;
 import com.oj.gkuoj.response.RankVO;
 import org.apache.ibatis.annotations.Param;
@@ -27,7 +28,9 @@ public interface UserMapper {
 
     int resetPasswordByEmail(@Param("email") String email, @Param("password") String password);
 
-    List<RankVO> listRankUser(@Param("keyword") String keyword);
+    List<RankVO> listRankVOByIds(@Param("ids") List<Integer> ids);
+
+    List<RankVO> listRankIndex();
 
     int countByUsername(String username);
 
@@ -53,4 +56,11 @@ public interface UserMapper {
 
     User getByUserName(String username);
 
+    /**
+     * 判题计数增量批量回写
+     * @param deltaList
+     * @return
+     */
+    int updateCountByDelta(List<VerdictCountDelta> deltaList);
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.oj.gkuoj.dto;
+
+/**
+ * 判题计数增量,批量回写 problem、user、competition_problem
+ * competition_problem 按 compId + problemId 定位,其余按 id
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午3:05
+ */
+public class VerdictCountDelta {
+
+    private Integer id;
+
+    private Integer compId;
+
+    private Integer problemId;
+
+    private Long submitCount;
+
+    private Long acCount;
+
+    private Long waCount;
+
+    private Long tleCount;
+
+    private Long peCount;
+
+    private Long meCount;
+
+    private Long reCount;
+
+    private Long ceCount;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getCompId() {
+        return compId;
+    }
+
+    public void setCompId(Integer compId) {
+        this.compId = compId;
+    }
+
+    public Integer getProblemId() {
+        return problemId;
+    }
+
+    public void setProblemId(Integer problemId) {
+        this.problemId = problemId;
+    }
+
+    public Long getSubmitCount() {
+        return submitCount;
+    }
+
+    public void setSubmitCount(Long submitCount) {
+        this.submitCount = submitCount;
+    }
+
+    public Long getAcCount() {
+        return acCount;
+    }
+
+    public void setAcCount(Long acCount) {
+        this.acCount = acCount;
+    }
+
+    public Long getWaCount() {
+        return waCount;
+    }
+
+    public void setWaCount(Long waCount) {
+        this.waCount = waCount;
+    }
+
+    public Long getTleCount() {
+        return tleCount;
+    }
+
+    public void setTleCount(Long tleCount) {
+        this.tleCount = tleCount;
+    }
+
+    public Long getPeCount() {
+        return peCount;
+    }
+
+    public void setPeCount(Long peCount) {
+        this.peCount = peCount;
+    }
+
+    public Long getMeCount() {
+        return meCount;
+    }
+
+    public void setMeCount(Long meCount) {
+        this.meCount = meCount;
+    }
+
+    public Long getReCount() {
+        return reCount;
+    }
+
+    public void setReCount(Long reCount) {
+        this.reCount = reCount;
+    }
+
+    public Long getCeCount() {
+        return ceCount;
+    }
+
+    public void setCeCount(Long ceCount) {
+        this.ceCount = ceCount;
+    }
+
+    @Override
+    public String toString() {
+        return "VerdictCountDelta{id=" + id +
+                ", compId=" + compId +
+                ", problemId=" + problemId +
+                ", submitCount=" + submitCount +
+                ", acCount=" + acCount +
+                ", waCount=" + waCount +
+                ", tleCount=" + tleCount +
+                ", peCount=" + peCount +
+                ", meCount=" + meCount +
+                ", reCount=" + reCount +
+                ", ceCount=" + ceCount +
+                '}';
+    }
+}
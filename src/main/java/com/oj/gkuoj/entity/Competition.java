@@ -26,6 +26,11 @@ public class Competition implements Serializable {
 
     private Date updateTime;
 
+    /**
+     * 赛制 1:OI 2:ACM
+     */
+    private Integer rule;
+
     public Competition(Integer id, Integer userId, String name, String title, String content, String password,  Date startTime, Date endTime, Date createTime, Date updateTime) {
         this.id = id;
         this.userId = userId;
@@ -123,6 +128,14 @@ public class Competition implements Serializable {
         this.updateTime = updateTime;
     }
 
+    public Integer getRule() {
+        return rule;
+    }
+
+    public void setRule(Integer rule) {
+        this.rule = rule;
+    }
+
     @Override
     public String toString() {
         return "Competition{" +
@@ -136,6 +149,7 @@ public class Competition implements Serializable {
                 ", endTime=" + endTime +
                 ", createTime=" + createTime +
                 ", updateTime=" + updateTime +
+                ", rule=" + rule +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.oj.gkuoj.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+
+public class JudgeOutbox implements Serializable {
+
+    private static final long serialVersionUID = -2389473062711865340L;
+
+    private Integer id;
+
+    private Integer proReId;
+
+    private String runNum;
+
+    private String payload;
+
+    private Integer status;
+
+    /**
+     * 投递排序键,见 JudgePriorityPolicy
+     */
+    private Long sortKey;
+
+    private Date createTime;
+
+    private Date updateTime;
+
+    public JudgeOutbox(Integer id, Integer proReId, String runNum, String payload, Integer status, Long sortKey, Date createTime, Date updateTime) {
+        this.id = id;
+        this.proReId = proReId;
+        this.runNum = runNum;
+        this.payload = payload;
+        this.status = status;
+        this.sortKey = sortKey;
+        this.createTime = createTime;
+        this.updateTime = updateTime;
+    }
+
+    public JudgeOutbox() {
+        super();
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public Integer getProReId() {
+        return proReId;
+    }
+
+    public void setProReId(Integer proReId) {
+        this.proReId = proReId;
+    }
+
+    public String getRunNum() {
+        return runNum;
+    }
+
+    public void setRunNum(String runNum) {
+        this.runNum = runNum == null ? null : runNum.trim();
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Long getSortKey() {
+        return sortKey;
+    }
+
+    public void setSortKey(Long sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "JudgeOutbox{" +
+                "id=" + id +
+                ", proReId=" + proReId +
+                ", runNum='" + runNum + '\'' +
+                ", status=" + status +
+                ", sortKey=" + sortKey +
+                ", createTime=" + createTime +
+                ", updateTime=" + updateTime +
+                '}';
+    }
+}
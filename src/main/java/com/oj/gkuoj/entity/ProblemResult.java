@@ -36,6 +36,21 @@ public class ProblemResult implements Serializable {
     @NotBlank
     private String sourceCode;
 
+    /**
+     * 代码指纹,见 SourceHashUtil
+     */
+    private String sourceHash;
+
+    /**
+     * 判题优先级,见 JudgePriorityEnum,不入库
+     */
+    private Integer priority;
+
+    /**
+     * 判题排序键,提交入队时确定(见 JudgePriorityPolicy),投递时从 outbox 带上,不入库
+     */
+    private Long sortKey;
+
     private Date createTime;
 
     private Date updateTime;
@@ -149,6 +164,30 @@ public class ProblemResult implements Serializable {
         this.sourceCode = sourceCode == null ? null : sourceCode.trim();
     }
 
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    public void setSourceHash(String sourceHash) {
+        this.sourceHash = sourceHash;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Long getSortKey() {
+        return sortKey;
+    }
+
+    public void setSortKey(Long sortKey) {
+        this.sortKey = sortKey;
+    }
+
     public Date getCreateTime() {
         return createTime;
     }
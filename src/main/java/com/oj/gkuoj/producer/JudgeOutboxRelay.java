@@ -0,0 +1,107 @@
+package com.oj.gkuoj.producer;
+
+import com.oj.gkuoj.common.CommonConst;
+import com.oj.gkuoj.dao.JudgeOutboxMapper;
+import com.oj.gkuoj.entity.JudgeOutbox;
+import com.oj.gkuoj.entity.ProblemResult;
+import com.oj.gkuoj.utils.JsonUtil;
+import com.oj.gkuoj.utils.UUIDUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * outbox 投递线程:每个节点用一条 update 认领一批未投递的提交(写入本节点 owner),交给 JudgeTransport 后标记已投递
+ * 认领是原子的,多个节点同时运行时每条提交只由一个节点投递
+ * 投递失败的部分放回未投递;节点认领后宕机的记录超过 lease-seconds 放回,由其他节点重新认领
+ * 只有投递成功但标记前宕机时会重复投递一次
+ *
+ * @author m969130721@163.com
+ * @date 19-3-21 下午4:05
+ */
+@Component
+public class JudgeOutboxRelay {
+
+    @Autowired
+    private JudgeOutboxMapper judgeOutboxMapper;
+
+    @Autowired
+    private JudgeTransport judgeTransport;
+
+    @Value("${judge.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${judge.outbox.retain-hours:24}")
+    private int retainHours;
+
+    @Value("${judge.outbox.lease-seconds:60}")
+    private int leaseSeconds;
+
+    private final String owner = UUIDUtil.createByAPI36();
+
+    private Logger logger = LoggerFactory.getLogger(JudgeOutboxRelay.class);
+
+    @Scheduled(fixedDelayString = "${judge.outbox.relay-interval:200}")
+    public void relay() {
+        while (judgeOutboxMapper.claim(owner, batchSize) > 0) {
+            List<JudgeOutbox> outboxList = judgeOutboxMapper.listByOwner(owner);
+            List<ProblemResult> problemResultList = new ArrayList<>(outboxList.size());
+            for (JudgeOutbox judgeOutbox : outboxList) {
+                ProblemResult problemResult = JsonUtil.string2Obj(judgeOutbox.getPayload(), ProblemResult.class);
+                //排序键按提交时间,投递晚了不重新计算
+                problemResult.setSortKey(judgeOutbox.getSortKey());
+                problemResultList.add(problemResult);
+            }
+            int sent = judgeTransport.sendBatch(problemResultList);
+            if (sent > 0) {
+                judgeOutboxMapper.updateStatusByIds(listId(outboxList.subList(0, sent)), owner,
+                        CommonConst.OutboxStatus.SENT);
+            }
+            if (sent < outboxList.size()) {
+                //判题端暂不可用,放回未投递,下一轮重试
+                judgeOutboxMapper.updateStatusByIds(listId(outboxList.subList(sent, outboxList.size())), owner,
+                        CommonConst.OutboxStatus.UNSENT);
+                logger.warn("outbox 投递未完成,本批:{},成功:{}", outboxList.size(), sent);
+                return;
+            }
+            if (outboxList.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 认领后未完成的记录放回未投递
+     */
+    @Scheduled(fixedDelayString = "${judge.outbox.release-interval:30000}")
+    public void releaseStale() {
+        int effect = judgeOutboxMapper.releaseSendingBefore(leaseSeconds);
+        if (effect > 0) {
+            logger.warn("outbox 认领超时放回未投递:{}", effect);
+        }
+    }
+
+    /**
+     * 清理已投递记录
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void purge() {
+        int effect = judgeOutboxMapper.deleteByStatusBefore(CommonConst.OutboxStatus.SENT, retainHours);
+        logger.info("清理已投递 outbox 记录:{}", effect);
+    }
+
+    private static List<Integer> listId(List<JudgeOutbox> outboxList) {
+        List<Integer> idList = new ArrayList<>(outboxList.size());
+        for (JudgeOutbox judgeOutbox : outboxList) {
+            idList.add(judgeOutbox.getId());
+        }
+        return idList;
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.oj.gkuoj.producer;
+
+import com.oj.gkuoj.common.JudgePriorityEnum;
+import com.oj.gkuoj.entity.ProblemResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 判题排序键 = 入队时间 + 该优先级的让步时间
+ * 低优先级最多让步固定时长,等待超过该时长后排在新到的高优先级之前,不会饿死
+ * 排序键入队时即确定,可直接用于堆和索引
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午8:05
+ */
+@Component
+public class JudgePriorityPolicy {
+
+    @Value("${judge.priority.practice-delay:60000}")
+    private long practiceDelay;
+
+    public long sortKey(Integer level, long enqueueTime) {
+        switch (JudgePriorityEnum.getByLevel(level)) {
+            case CONTEST:
+                return enqueueTime;
+            default:
+                return enqueueTime + practiceDelay;
+        }
+    }
+
+    /**
+     * 提交入队时已确定排序键的直接使用,投递延迟(如 broker 不可用时积压)不会让低优先级再让步一次
+     * 没有排序键(未经 outbox 的直接投递)时按当前时间计算
+     */
+    public long sortKey(ProblemResult problemResult) {
+        if (problemResult.getSortKey() != null) {
+            return problemResult.getSortKey();
+        }
+        return sortKey(problemResult.getPriority(), System.currentTimeMillis());
+    }
+
+}
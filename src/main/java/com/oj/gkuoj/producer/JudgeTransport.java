@@ -0,0 +1,41 @@
+package com.oj.gkuoj.producer;
+
+import com.oj.gkuoj.entity.ProblemResult;
+import com.oj.gkuoj.response.RestResponseVO;
+
+import java.util.List;
+
+/**
+ * 判题传输方式,由配置 judge.transport 选择具体实现
+ *
+ * @author m969130721@163.com
+ * @date 19-3-20 下午3:12
+ */
+public interface JudgeTransport {
+
+    /**
+     * 将提交交给判题端
+     *
+     * @param problemResult
+     * @return runNum
+     */
+    RestResponseVO<String> send(ProblemResult problemResult);
+
+    /**
+     * 批量交给判题端,按顺序投递,遇到失败即停止
+     *
+     * @param problemResultList
+     * @return 成功投递的前缀条数
+     */
+    default int sendBatch(List<ProblemResult> problemResultList) {
+        int sent = 0;
+        for (ProblemResult problemResult : problemResultList) {
+            if (!send(problemResult).isSuccess()) {
+                break;
+            }
+            sent++;
+        }
+        return sent;
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.oj.gkuoj.producer;
+
+import com.oj.gkuoj.entity.ProblemResult;
+
+/**
+ * 进程内判题执行者,judge.transport=local 时由 LocalJudgeTransport 的工作线程调用
+ * 本工程不提供实现,需由判题模块注册为 bean:判题过程中及结束后调用 JudgeResultService.report 上报状态,
+ * 与 rocketMQ 判题机上报的内容一致;未注册时 local 模式启动失败
+ *
+ * @author m969130721@163.com
+ * @date 19-3-20 下午3:15
+ */
+public interface JudgeWorker {
+
+    /**
+     * 判题(在判题线程池中执行)
+     *
+     * @param problemResult
+     */
+    void judge(ProblemResult problemResult);
+
+}
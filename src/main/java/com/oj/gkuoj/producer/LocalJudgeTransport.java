@@ -0,0 +1,186 @@
+package com.oj.gkuoj.producer;
+
+import com.oj.gkuoj.common.RestResponseEnum;
+import com.oj.gkuoj.entity.ProblemResult;
+import com.oj.gkuoj.response.RestResponseVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内判题传输,适用于单机部署,省去一次 broker 转发
+ * 有界优先队列 + 拒绝策略做背压,队列满时不会无限堆积,队列内按 JudgePriorityPolicy 的排序键出队
+ *
+ * @author m969130721@163.com
+ * @date 19-3-20 下午3:40
+ */
+@Component
+@ConditionalOnProperty(name = "judge.transport", havingValue = "local")
+public class LocalJudgeTransport implements JudgeTransport {
+
+    /**
+     * 拒绝策略:直接拒绝,返回队列已满
+     */
+    private static final String POLICY_ABORT = "abort";
+
+    /**
+     * 拒绝策略:由提交线程自己执行判题
+     */
+    private static final String POLICY_CALLER_RUNS = "caller-runs";
+
+    @Autowired
+    private ObjectProvider<JudgeWorker> judgeWorkerProvider;
+
+    private JudgeWorker judgeWorker;
+
+    @Autowired
+    private JudgePriorityPolicy judgePriorityPolicy;
+
+    @Value("${judge.local.worker-count:4}")
+    private int workerCount;
+
+    @Value("${judge.local.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${judge.local.rejection-policy:abort}")
+    private String rejectionPolicy;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 排序键相同时保持先进先出
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Logger logger = LoggerFactory.getLogger(LocalJudgeTransport.class);
+
+    @PostConstruct
+    private void initExecutor() {
+        //本工程不包含判题程序,进程内判题需由判题模块提供 JudgeWorker,缺失时启动即失败,不等到第一次提交
+        judgeWorker = judgeWorkerProvider.getIfAvailable();
+        if (judgeWorker == null) {
+            throw new IllegalStateException("judge.transport=local 需要一个 JudgeWorker 实现(判题后调用 "
+                    + "JudgeResultService.report 上报结果),当前未找到,请引入判题模块或改用 judge.transport=rocketmq");
+        }
+        RejectedExecutionHandler handler;
+        if (POLICY_ABORT.equals(rejectionPolicy)) {
+            handler = new ThreadPoolExecutor.AbortPolicy();
+        } else if (POLICY_CALLER_RUNS.equals(rejectionPolicy)) {
+            handler = new ThreadPoolExecutor.CallerRunsPolicy();
+        } else {
+            throw new IllegalArgumentException("未知的判题拒绝策略:" + rejectionPolicy);
+        }
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new BoundedPriorityBlockingQueue(queueCapacity), new JudgeThreadFactory(), handler);
+        logger.info("进程内判题线程池初始化完成,workerCount:{},queueCapacity:{},rejectionPolicy:{}",
+                workerCount, queueCapacity, rejectionPolicy);
+    }
+
+    @PreDestroy
+    private void shutdownExecutor() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("判题线程池关闭超时,丢弃未执行提交:{}", executor.shutdownNow().size());
+            }
+        }
+    }
+
+    @Override
+    public RestResponseVO<String> send(ProblemResult problemResult) {
+        try {
+            long sortKey = judgePriorityPolicy.sortKey(problemResult);
+            executor.execute(new JudgeTask(sortKey, sequence.getAndIncrement(), () -> {
+                try {
+                    judgeWorker.judge(problemResult);
+                } catch (Exception e) {
+                    logger.error("判题异常,runNum:{}", problemResult.getRunNum(), e);
+                }
+            }));
+            return RestResponseVO.createBySuccess(problemResult.getRunNum());
+        } catch (RejectedExecutionException e) {
+            logger.warn("判题队列已满,runNum:{},queueSize:{}", problemResult.getRunNum(), executor.getQueue().size());
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.JUDGE_QUEUE_FULL_ERROR);
+        }
+    }
+
+
+    private static class JudgeTask implements Runnable, Comparable<JudgeTask> {
+
+        private final long sortKey;
+
+        private final long sequence;
+
+        private final Runnable task;
+
+        JudgeTask(long sortKey, long sequence, Runnable task) {
+            this.sortKey = sortKey;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(JudgeTask other) {
+            int result = Long.compare(sortKey, other.sortKey);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+
+    /**
+     * PriorityBlockingQueue 本身无界,这里限制容量,超出时 offer 返回 false 交给拒绝策略
+     */
+    private static class BoundedPriorityBlockingQueue extends PriorityBlockingQueue<Runnable> {
+
+        private static final long serialVersionUID = 3126839473618471962L;
+
+        private final int capacity;
+
+        BoundedPriorityBlockingQueue(int capacity) {
+            super(capacity);
+            this.capacity = capacity;
+        }
+
+        @Override
+        public synchronized boolean offer(Runnable runnable) {
+            return size() < capacity && super.offer(runnable);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+    }
+
+
+    private static class JudgeThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNum = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "judge-worker-" + threadNum.getAndIncrement());
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.oj.gkuoj.producer;
+
+import com.oj.gkuoj.common.JudgePriorityEnum;
+import com.oj.gkuoj.entity.ProblemResult;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.utils.JsonUtil;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.remoting.common.RemotingHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * rocketMQ 判题传输(默认),消息 tag 为优先级
+ * 开启 rocketmq.priority-topic.enabled 后比赛提交单独投递到比赛 topic,练习提交仍在 rocketmq.topic
+ *
+ * @author m969130721@163.com
+ * @date 19-3-20 下午3:20
+ */
+@Component
+@ConditionalOnProperty(name = "judge.transport", havingValue = "rocketmq", matchIfMissing = true)
+public class MQJudgeTransport implements JudgeTransport {
+
+    /**
+     * 消息属性:判题排序键(入队时间 + 优先级让步时间),越小越先判
+     */
+    private static final String PROPERTY_SORT_KEY = "SORT_KEY";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private JudgePriorityPolicy judgePriorityPolicy;
+
+    private DefaultMQProducer producer;
+
+    private final Map<JudgePriorityEnum, String> topicMap = new EnumMap<>(JudgePriorityEnum.class);
+
+    private Logger logger = LoggerFactory.getLogger(MQJudgeTransport.class);
+
+    @PostConstruct
+    private void initMQProducer() {
+        initTopic();
+        producer = new DefaultMQProducer(environment.getProperty("rocketmq.producer.group"));
+        producer.setNamesrvAddr(environment.getProperty("rocketmq.nameserver"));
+        producer.setRetryTimesWhenSendFailed(Integer.parseInt(environment.getProperty("rocketmq.producer.retry-times")));
+        try {
+            producer.start();
+        } catch (MQClientException e) {
+            logger.error("判题机客户端初始化失败,{}", e.getErrorMessage());
+        }
+    }
+
+    @PreDestroy
+    private void shutdownMQProducer() {
+        if (producer != null) {
+            producer.shutdown();
+        }
+    }
+
+    @Override
+    public RestResponseVO<String> send(ProblemResult problemResult) {
+        try {
+            SendResult sendResult = producer.send(buildMessage(problemResult));
+            logger.info("{},发送消息：{}", Thread.currentThread().getName(), sendResult);
+            return RestResponseVO.createBySuccess(problemResult.getRunNum());
+        } catch (Exception e) {
+            logger.error("发送异常,{}", e);
+            return RestResponseVO.createByErrorMessage("发送异常,请稍后再试," + e.getMessage());
+        }
+    }
+
+    /**
+     * rocketMQ 批量消息只能同一 topic,按顺序把相邻同 topic 的提交合成一批发送,遇到失败即停止
+     *
+     * @param problemResultList
+     * @return 成功投递的前缀条数
+     */
+    @Override
+    public int sendBatch(List<ProblemResult> problemResultList) {
+        int sent = 0;
+        while (sent < problemResultList.size()) {
+            String topic = getTopic(problemResultList.get(sent));
+            int end = sent + 1;
+            while (end < problemResultList.size() && topic.equals(getTopic(problemResultList.get(end)))) {
+                end++;
+            }
+            try {
+                List<Message> messageList = new ArrayList<>(end - sent);
+                for (ProblemResult problemResult : problemResultList.subList(sent, end)) {
+                    messageList.add(buildMessage(problemResult));
+                }
+                SendResult sendResult = producer.send(messageList);
+                logger.info("{},批量发送消息：{},条数:{}", Thread.currentThread().getName(), sendResult, messageList.size());
+            } catch (Exception e) {
+                logger.error("批量发送异常,{}", e);
+                return sent;
+            }
+            sent = end;
+        }
+        return sent;
+    }
+
+    /**
+     * 消息属性带排序键,判题端比较排序键实现等待超时后提升
+     */
+    private Message buildMessage(ProblemResult problemResult) throws UnsupportedEncodingException {
+        JudgePriorityEnum priority = JudgePriorityEnum.getByLevel(problemResult.getPriority());
+        String body = JsonUtil.obj2String(problemResult);
+        Message message = new Message(getTopic(priority), priority.getTag(), body.getBytes(RemotingHelper.DEFAULT_CHARSET));
+        message.setKeys(problemResult.getRunNum());
+        message.putUserProperty(PROPERTY_SORT_KEY, String.valueOf(judgePriorityPolicy.sortKey(problemResult)));
+        return message;
+    }
+
+    private String getTopic(ProblemResult problemResult) {
+        return getTopic(JudgePriorityEnum.getByLevel(problemResult.getPriority()));
+    }
+
+    private String getTopic(JudgePriorityEnum priority) {
+        return topicMap.get(priority);
+    }
+
+    /**
+     * 默认全部投递到 rocketmq.topic,与现有判题端兼容
+     * 开启分 topic 后比赛提交单独一个 topic,broker 上练习提交积压时不会堵住比赛提交;练习默认仍在 rocketmq.topic,
+     * 上线顺序:先让判题端同时订阅比赛 topic,再开启 rocketmq.priority-topic.enabled
+     */
+    private void initTopic() {
+        String defaultTopic = environment.getProperty("rocketmq.topic");
+        boolean split = environment.getProperty("rocketmq.priority-topic.enabled", Boolean.class, false);
+        for (JudgePriorityEnum priority : JudgePriorityEnum.values()) {
+            String topic = defaultTopic;
+            if (split) {
+                topic = environment.getProperty("rocketmq.priority-topic." + priority.getTag().toLowerCase(),
+                        priority == JudgePriorityEnum.PRACTICE ? defaultTopic : defaultTopic + "_" + priority.getTag());
+            }
+            topicMap.put(priority, topic);
+        }
+        logger.info("判题投递 topic:{}", topicMap);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.oj.gkuoj.response;
+
+import java.util.List;
+
+/**
+ * 游标翻页结果,nextCursor 原样传回即可取下一页,不返回总数
+ *
+ * @author m969130721@163.com
+ * @date 19-3-30 上午10:20
+ */
+public class CursorPageVO<T> {
+
+    private List<T> list;
+
+    /**
+     * 下一页游标,没有下一页时为 null
+     */
+    private String nextCursor;
+
+    private Boolean hasMore;
+
+    public CursorPageVO(List<T> list, String nextCursor) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public void setList(List<T> list) {
+        this.list = list;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPageVO{" +
+                "list=" + list +
+                ", nextCursor='" + nextCursor + '\'' +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
@@ -40,6 +40,11 @@ public class ProblemResultCompetitionVO {
      */
     private Integer acCount = 0;
 
+    /**
+     * 测试点数
+     */
+    private Integer testcaseCount = 0;
+
     private Integer score = 0;
 
     public Integer getId() {
@@ -138,6 +143,14 @@ public class ProblemResultCompetitionVO {
         this.acCount = acCount;
     }
 
+    public Integer getTestcaseCount() {
+        return testcaseCount;
+    }
+
+    public void setTestcaseCount(Integer testcaseCount) {
+        this.testcaseCount = testcaseCount;
+    }
+
     public Integer getScore() {
         return score;
     }
@@ -170,6 +183,7 @@ public class ProblemResultCompetitionVO {
                 ", createTime=" + createTime +
                 ", updateTime=" + updateTime +
                 ", acCount=" + acCount +
+                ", testcaseCount=" + testcaseCount +
                 ", score=" + score +
                 '}';
     }
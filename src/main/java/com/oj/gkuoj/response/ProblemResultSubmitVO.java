@@ -16,6 +16,8 @@ public class ProblemResultSubmitVO {
 
     private String runNum;
 
+    private Integer userId;
+
     private Integer problemId;
 
     private Integer compId;
@@ -26,7 +28,20 @@ public class ProblemResultSubmitVO {
 
     private Long memory;
 
+    /**
+     * 当前测试点序号,仅单个测试点进度时有值
+     */
+    private Integer testcaseNum;
+
+    /**
+     * 当前测试点结果
+     */
+    private Integer testcaseStatus;
 
+    /**
+     * 记录最后更新时间,仅推荐题目增量读取通过记录时有值
+     */
+    private Date updateTime;
 
 
     public Integer getId() {
@@ -92,16 +107,50 @@ public class ProblemResultSubmitVO {
         this.runNum = runNum;
     }
 
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Integer getTestcaseNum() {
+        return testcaseNum;
+    }
+
+    public void setTestcaseNum(Integer testcaseNum) {
+        this.testcaseNum = testcaseNum;
+    }
+
+    public Integer getTestcaseStatus() {
+        return testcaseStatus;
+    }
+
+    public void setTestcaseStatus(Integer testcaseStatus) {
+        this.testcaseStatus = testcaseStatus;
+    }
+
     @Override
     public String toString() {
         return "ProblemResultSubmitVO{" +
                 "id=" + id +
                 ", runNum='" + runNum + '\'' +
+                ", userId=" + userId +
                 ", problemId=" + problemId +
                 ", compId=" + compId +
                 ", status=" + status +
                 ", time=" + time +
                 ", memory=" + memory +
+                ", testcaseNum=" + testcaseNum +
+                ", testcaseStatus=" + testcaseStatus +
                 '}';
     }
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
 }
@@ -18,6 +18,11 @@ public class ProblemVO implements Serializable{
 
     private String tags;
 
+    /**
+     * 标签 id,逗号分隔
+     */
+    private String tagIds;
+
     private Integer level;
 
     private Integer submitCount;
@@ -79,6 +84,14 @@ public class ProblemVO implements Serializable{
         this.tags = tags == null ? null : tags.trim();
     }
 
+    public String getTagIds() {
+        return tagIds;
+    }
+
+    public void setTagIds(String tagIds) {
+        this.tagIds = tagIds;
+    }
+
     public Integer getLevel() {
         return level;
     }
@@ -0,0 +1,69 @@
+package com.oj.gkuoj.response;
+
+/**
+ * 接口响应体大小统计
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午8:10
+ */
+public class ResponseSizeVO {
+
+    private String uri;
+
+    /**
+     * 请求次数
+     */
+    private Long count;
+
+    /**
+     * 平均字节数
+     */
+    private Long avgBytes;
+
+    /**
+     * 最大字节数
+     */
+    private Long maxBytes;
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Long getAvgBytes() {
+        return avgBytes;
+    }
+
+    public void setAvgBytes(Long avgBytes) {
+        this.avgBytes = avgBytes;
+    }
+
+    public Long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(Long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseSizeVO{" +
+                "uri='" + uri + '\'' +
+                ", count=" + count +
+                ", avgBytes=" + avgBytes +
+                ", maxBytes=" + maxBytes +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.oj.gkuoj.response;
+
+/**
+ * 榜单单元格:某用户在某题上的成绩
+ *
+ * @author m969130721@163.com
+ * @date 19-3-26 下午4:10
+ */
+public class ScoreboardProblemVO {
+
+    private Integer problemId;
+
+    /**
+     * 最高分(OI)
+     */
+    private Integer score;
+
+    /**
+     * 通过用时,距开赛秒数,未通过为 null(ACM)
+     */
+    private Long acTime;
+
+    /**
+     * 通过前错误次数(ACM)
+     */
+    private Integer wrongCount = 0;
+
+    /**
+     * 是否一血
+     */
+    private Boolean firstAc = false;
+
+    public Integer getProblemId() {
+        return problemId;
+    }
+
+    public void setProblemId(Integer problemId) {
+        this.problemId = problemId;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public Long getAcTime() {
+        return acTime;
+    }
+
+    public void setAcTime(Long acTime) {
+        this.acTime = acTime;
+    }
+
+    public Integer getWrongCount() {
+        return wrongCount;
+    }
+
+    public void setWrongCount(Integer wrongCount) {
+        this.wrongCount = wrongCount;
+    }
+
+    public Boolean getFirstAc() {
+        return firstAc;
+    }
+
+    public void setFirstAc(Boolean firstAc) {
+        this.firstAc = firstAc;
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreboardProblemVO{" +
+                "problemId=" + problemId +
+                ", score=" + score +
+                ", acTime=" + acTime +
+                ", wrongCount=" + wrongCount +
+                ", firstAc=" + firstAc +
+                '}';
+    }
+}
@@ -0,0 +1,125 @@
+package com.oj.gkuoj.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 比赛榜单一行
+ *
+ * @author m969130721@163.com
+ * @date 19-3-26 下午4:02
+ */
+public class ScoreboardVO {
+
+    private Integer rank;
+
+    private Integer userId;
+
+    private String name;
+
+    private String school;
+
+    private String avatar;
+
+    /**
+     * 总分(OI)
+     */
+    private Integer score = 0;
+
+    /**
+     * 通过题数(ACM)
+     */
+    private Integer solved = 0;
+
+    /**
+     * 罚时,秒(ACM)
+     */
+    private Long penalty = 0L;
+
+    private List<ScoreboardProblemVO> problemList = new ArrayList<>();
+
+    public Integer getRank() {
+        return rank;
+    }
+
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSchool() {
+        return school;
+    }
+
+    public void setSchool(String school) {
+        this.school = school;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
+    public Integer getSolved() {
+        return solved;
+    }
+
+    public void setSolved(Integer solved) {
+        this.solved = solved;
+    }
+
+    public Long getPenalty() {
+        return penalty;
+    }
+
+    public void setPenalty(Long penalty) {
+        this.penalty = penalty;
+    }
+
+    public List<ScoreboardProblemVO> getProblemList() {
+        return problemList;
+    }
+
+    public void setProblemList(List<ScoreboardProblemVO> problemList) {
+        this.problemList = problemList;
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreboardVO{" +
+                "rank=" + rank +
+                ", userId=" + userId +
+                ", name='" + name + '\'' +
+                ", score=" + score +
+                ", solved=" + solved +
+                ", penalty=" + penalty +
+                ", problemList=" + problemList +
+                '}';
+    }
+}
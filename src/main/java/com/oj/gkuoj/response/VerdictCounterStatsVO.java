@@ -0,0 +1,121 @@
+package com.oj.gkuoj.response;
+
+import java.util.Date;
+
+/**
+ * 判题计数回写状态,recordCount = flushedCount + pendingCount,差值即未落库的计数
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午3:25
+ */
+public class VerdictCounterStatsVO {
+
+    /**
+     * 启动以来记录的结果数
+     */
+    private Long recordCount;
+
+    /**
+     * 已写入数据库的结果数
+     */
+    private Long flushedCount;
+
+    /**
+     * 尚未写入数据库的结果数
+     */
+    private Long pendingCount;
+
+    /**
+     * 有未写入增量的行数
+     */
+    private Integer pendingRows;
+
+    private Long flushCount;
+
+    private Long failedFlushCount;
+
+    private Date lastFlushTime;
+
+    /**
+     * 上次回写耗时(ms)
+     */
+    private Long lastFlushCost;
+
+    public Long getRecordCount() {
+        return recordCount;
+    }
+
+    public void setRecordCount(Long recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public Long getFlushedCount() {
+        return flushedCount;
+    }
+
+    public void setFlushedCount(Long flushedCount) {
+        this.flushedCount = flushedCount;
+    }
+
+    public Long getPendingCount() {
+        return pendingCount;
+    }
+
+    public void setPendingCount(Long pendingCount) {
+        this.pendingCount = pendingCount;
+    }
+
+    public Integer getPendingRows() {
+        return pendingRows;
+    }
+
+    public void setPendingRows(Integer pendingRows) {
+        this.pendingRows = pendingRows;
+    }
+
+    public Long getFlushCount() {
+        return flushCount;
+    }
+
+    public void setFlushCount(Long flushCount) {
+        this.flushCount = flushCount;
+    }
+
+    public Long getFailedFlushCount() {
+        return failedFlushCount;
+    }
+
+    public void setFailedFlushCount(Long failedFlushCount) {
+        this.failedFlushCount = failedFlushCount;
+    }
+
+    public Date getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    public void setLastFlushTime(Date lastFlushTime) {
+        this.lastFlushTime = lastFlushTime;
+    }
+
+    public Long getLastFlushCost() {
+        return lastFlushCost;
+    }
+
+    public void setLastFlushCost(Long lastFlushCost) {
+        this.lastFlushCost = lastFlushCost;
+    }
+
+    @Override
+    public String toString() {
+        return "VerdictCounterStatsVO{" +
+                "recordCount=" + recordCount +
+                ", flushedCount=" + flushedCount +
+                ", pendingCount=" + pendingCount +
+                ", pendingRows=" + pendingRows +
+                ", flushCount=" + flushCount +
+                ", failedFlushCount=" + failedFlushCount +
+                ", lastFlushTime=" + lastFlushTime +
+                ", lastFlushCost=" + lastFlushCost +
+                '}';
+    }
+}
@@ -7,6 +7,7 @@ import com.oj.gkuoj.entity.Competition;
 import com.oj.gkuoj.entity.User;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.service.CompetitionService;
+import com.oj.gkuoj.service.ScoreboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -28,6 +29,9 @@ public class CompetitionController {
     @Autowired
     private CompetitionService competitionService;
 
+    @Autowired
+    private ScoreboardService scoreboardService;
+
 
 
     /**
@@ -108,6 +112,17 @@ public class CompetitionController {
         return competitionService.delById(compId);
     }
 
+    /**
+     * 从提交记录重建榜单
+     * @param compId
+     * @return
+     */
+    @RequestMapping("/rebuildScoreboard")
+    @ResponseBody
+    public RestResponseVO rebuildScoreboard(Integer compId){
+        return scoreboardService.rebuild(compId);
+    }
+
 
 
 
@@ -1,7 +1,16 @@
 package com.oj.gkuoj.rest.backend;
 
+import com.oj.gkuoj.response.ResponseSizeVO;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.response.VerdictCounterStatsVO;
+import com.oj.gkuoj.service.ResponseSizeService;
+import com.oj.gkuoj.service.VerdictCounterService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
 
 /**
  * @author m969130721@163.com
@@ -11,6 +20,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 @RequestMapping("/backend")
 public class IndexController {
 
+    @Autowired
+    private ResponseSizeService responseSizeService;
+
+    @Autowired
+    private VerdictCounterService verdictCounterService;
 
     @RequestMapping("/")
     public String index() {
@@ -18,5 +32,46 @@ public class IndexController {
 
     }
 
+    /**
+     * 接口响应体大小统计
+     * @return
+     */
+    @RequestMapping("/listResponseSize")
+    @ResponseBody
+    public RestResponseVO<List<ResponseSizeVO>> listResponseSize() {
+        return responseSizeService.listResponseSize();
+    }
+
+    /**
+     * 清空响应体大小统计
+     * @return
+     */
+    @RequestMapping("/resetResponseSize")
+    @ResponseBody
+    public RestResponseVO resetResponseSize() {
+        return responseSizeService.reset();
+    }
+
+    /**
+     * 判题计数回写状态
+     * @return
+     */
+    @RequestMapping("/verdictCounterStats")
+    @ResponseBody
+    public RestResponseVO<VerdictCounterStatsVO> verdictCounterStats() {
+        return verdictCounterService.getStats();
+    }
+
+    /**
+     * 立即回写判题计数
+     * @return
+     */
+    @RequestMapping("/flushVerdictCounter")
+    @ResponseBody
+    public RestResponseVO<VerdictCounterStatsVO> flushVerdictCounter() {
+        verdictCounterService.flush();
+        return verdictCounterService.getStats();
+    }
+
 
 }
@@ -12,6 +12,7 @@ import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.service.BlogCategoryService;
 import com.oj.gkuoj.service.BlogCommentService;
 import com.oj.gkuoj.service.BlogService;
+import com.oj.gkuoj.service.BlogViewCountService;
 import com.oj.gkuoj.service.UpService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -49,6 +50,9 @@ public class BlogController {
     @Autowired
     private UpService upService;
 
+    @Autowired
+    private BlogViewCountService blogViewCountService;
+
     private final Integer SIZE_HOT_BLOG = 10;
 
     /**
@@ -146,12 +150,14 @@ public class BlogController {
                                  Integer blogId,
                                  @AuthenticationPrincipal UserDetails userDetails) {
 
-        //updateBlogViewCount
-        blogService.updateViewCount(blogId);
         Integer userId = null;
         if (userDetails != null) {
             userId = ((User) userDetails).getId();
         }
+        //浏览数异步写回,同一访客短时间内重复浏览只计一次
+        String visitor = userId != null ? "U" + userId
+                : request.getRequestedSessionId() != null ? request.getRequestedSessionId() : request.getRemoteAddr();
+        blogViewCountService.increase(blogId, visitor);
         RestResponseVO<BlogDetailVO> blogResponse = blogService.getBlogDetailVOById(blogId, userId);
 
         //近期热帖
@@ -12,6 +12,7 @@ import com.oj.gkuoj.response.CompetitionDetailVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.service.CompetitionService;
 import com.oj.gkuoj.service.RegisterService;
+import com.oj.gkuoj.service.ScoreboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -41,6 +42,9 @@ public class CompetitionController {
     @Autowired
     private RegisterService registerService;
 
+    @Autowired
+    private ScoreboardService scoreboardService;
+
     /**
      * 跳转到比赛列表页面
      *
@@ -169,5 +173,38 @@ public class CompetitionController {
         return "portal/competition/competition-problemList";
     }
 
+    /**
+     * 比赛榜单
+     *
+     * @param compId
+     * @param pageNum
+     * @param pageSize
+     * @return
+     */
+    @RequestMapping("/listScoreboard2Page")
+    @ResponseBody
+    public RestResponseVO listScoreboard2Page(Integer compId,
+                                              @RequestParam(defaultValue = "1") Integer pageNum,
+                                              @RequestParam(defaultValue = "50") Integer pageSize) {
+        return scoreboardService.listScoreboard2Page(compId, pageNum, pageSize);
+    }
+
+    /**
+     * 我的榜单排名
+     *
+     * @param userDetails
+     * @param compId
+     * @return
+     */
+    @RequestMapping("/myScoreboard")
+    @ResponseBody
+    public RestResponseVO myScoreboard(@AuthenticationPrincipal UserDetails userDetails, Integer compId) {
+        if (userDetails == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.UNAUTHORIZED);
+        }
+        Integer userId = ((User) userDetails).getId();
+        return scoreboardService.getByUserId(compId, userId);
+    }
+
 
 }
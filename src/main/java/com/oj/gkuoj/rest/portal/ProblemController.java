@@ -2,10 +2,10 @@ package com.oj.gkuoj.rest.portal;
 
 import com.github.pagehelper.PageInfo;
 import com.oj.gkuoj.common.ExceptionStatusConst;
-import com.oj.gkuoj.entity.Problem;
 import com.oj.gkuoj.entity.User;
 import com.oj.gkuoj.exception.ProblemNotFoundException;
 import com.oj.gkuoj.response.ProblemDetailVO;
+import com.oj.gkuoj.response.ProblemVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.response.TagVO;
 import com.oj.gkuoj.service.ProblemResultService;
@@ -109,14 +109,14 @@ public class ProblemController {
     }
 
     /**
-     * 随机返回5道推荐题目
+     * 返回5道推荐题目,从相似题目中随机选取
      *
      * @param problemId
      * @return
      */
     @RequestMapping("/suggestProblemList")
     @ResponseBody
-    public RestResponseVO<List<Problem>> suggestProblemList(Integer problemId) {
+    public RestResponseVO<List<ProblemVO>> suggestProblemList(Integer problemId) {
         return problemService.listSuggestProblem(problemId, SUGGEST_PROBLEM_ROW);
     }
 
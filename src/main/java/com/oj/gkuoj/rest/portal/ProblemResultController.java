@@ -8,13 +8,17 @@ import com.oj.gkuoj.entity.Competition;
 import com.oj.gkuoj.entity.User;
 import com.oj.gkuoj.exception.UserUnAuthorizedException;
 import com.oj.gkuoj.producer.JudgeProducer;
+import com.oj.gkuoj.response.CursorPageVO;
 import com.oj.gkuoj.response.ProblemResultDetailVO;
 import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.response.ProblemResultVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.entity.ProblemResult;
 import com.oj.gkuoj.service.CompetitionService;
+import com.oj.gkuoj.service.JudgeStatusPushService;
 import com.oj.gkuoj.service.ProblemResultService;
 import com.oj.gkuoj.service.RegisterService;
+import com.oj.gkuoj.service.SubmitRateLimitService;
 import com.oj.gkuoj.utils.UUIDUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -25,6 +29,7 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.Instant;
@@ -49,6 +54,12 @@ public class ProblemResultController {
     @Autowired
     private RegisterService registerService;
 
+    @Autowired
+    private JudgeStatusPushService judgeStatusPushService;
+
+    @Autowired
+    private SubmitRateLimitService submitRateLimitService;
+
     /**
      * 跳转到测评记录列表页面
      *
@@ -86,6 +97,28 @@ public class ProblemResultController {
         return problemResultService.listProblemResult2Page(problemId, name, type, status, pageNum, pageSize);
     }
 
+    /**
+     * 获取题目结果List,游标翻页,不查总数
+     *
+     * @param problemId
+     * @param cursor    上一页返回的 nextCursor,为空时取第一页
+     * @param pageSize
+     * @param name
+     * @param type
+     * @param status
+     * @return
+     */
+    @RequestMapping("/listProblemResult2Cursor")
+    @ResponseBody
+    public RestResponseVO<CursorPageVO<ProblemResultVO>> listProblemResult2Cursor(@RequestParam(required = false) Integer problemId,
+                                                                                  @RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(defaultValue = "20") Integer pageSize,
+                                                                                  @RequestParam(defaultValue = "", required = false) String name,
+                                                                                  @RequestParam(defaultValue = "", required = false) String type,
+                                                                                  @RequestParam(defaultValue = "-1", required = false) Integer status) {
+        return problemResultService.listProblemResult2Cursor(problemId, name, type, status, cursor, pageSize);
+    }
+
 
     /**
      * 显示源码
@@ -148,6 +181,10 @@ public class ProblemResultController {
             }
         }
 
+        if (!submitRateLimitService.tryAcquire(user.getId(), problemResult.getCompId())) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.SUBMIT_RATE_LIMITED_ERROR);
+        }
+
         //init
         problemResult.setUserId(user.getId());
         problemResult.setStatus(JudgeStatusEnum.QUEUING.getStatus());
@@ -200,6 +237,18 @@ public class ProblemResultController {
     }
 
 
+    /**
+     * 订阅测评状态(SSE),判题进度到达时推送,最终结果后关闭
+     *
+     * @param runNum
+     * @return
+     */
+    @RequestMapping("/subscribe")
+    public SseEmitter subscribe(@RequestParam String runNum) {
+        return judgeStatusPushService.subscribe(runNum);
+    }
+
+
     /**
      * 获取用户比赛提交记录
      * @param userDetails
@@ -0,0 +1,37 @@
+package com.oj.gkuoj.service;
+
+import java.util.List;
+
+/**
+ * 热门帖子,热度 = 浏览、回复、点赞按权重累加,并按半衰期随时间衰减
+ *
+ * @author m969130721@163.com
+ * @date 19-3-31 上午10:20
+ */
+public interface BlogHotService {
+
+    void increaseByView(Integer blogId);
+
+    void increaseByReply(Integer blogId);
+
+    /**
+     * @param blogId
+     * @param status true 点赞,false 取消点赞
+     */
+    void increaseByUp(Integer blogId, boolean status);
+
+    /**
+     * 帖子删除时移出热门
+     */
+    void remove(Integer blogId);
+
+    /**
+     * 热度最高的帖子 id,热度降序
+     */
+    List<Integer> listHotBlogId(int size);
+
+    /**
+     * 按经过的时间衰减全部热度
+     */
+    void decay();
+}
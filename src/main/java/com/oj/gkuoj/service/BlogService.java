@@ -26,7 +26,6 @@ public interface BlogService {
 
     RestResponseVO<BlogDetailVO> getBlogDetailVOById(Integer blogId,Integer userId);
 
-    RestResponseVO updateViewCount(Integer blogId);
 
     RestResponseVO<List<BlogVO>> listHotBlogVO(Integer pageSize);
 
@@ -0,0 +1,24 @@
+package com.oj.gkuoj.service;
+
+/**
+ * 帖子浏览数,先在 redis 累加,定时批量写回
+ *
+ * @author m969130721@163.com
+ * @date 19-3-30 下午2:10
+ */
+public interface BlogViewCountService {
+
+    /**
+     * 记录一次浏览
+     *
+     * @param blogId
+     * @param visitor 访客标识(用户 id、session id 或 ip),为空时不去重
+     */
+    void increase(Integer blogId, String visitor);
+
+    /**
+     * 把累计的浏览数写回 mysql
+     */
+    void flush();
+
+}
@@ -6,6 +6,7 @@ import com.oj.gkuoj.response.CompetitionProblemVO;
 import com.oj.gkuoj.response.RestResponseVO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author m969130721@163.com
@@ -25,4 +26,6 @@ public interface CompetitionProblemService {
 
     RestResponseVO<Integer> getScoreByCompIdProblemId(Integer compId,Integer problemId);
 
+    RestResponseVO<Map<Integer, Integer>> getScoreMapByCompId(Integer compId);
+
 }
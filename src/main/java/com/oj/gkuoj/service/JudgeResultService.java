@@ -0,0 +1,21 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.response.RestResponseVO;
+
+/**
+ * 判题结果接收
+ *
+ * @author m969130721@163.com
+ * @date 19-3-23 下午2:10
+ */
+public interface JudgeResultService {
+
+    /**
+     * 判题端上报进度:状态变化(QUEUING -> COMPILING -> JUDGING)、单个测试点结果、最终结果
+     *
+     * @param progress
+     * @return
+     */
+    RestResponseVO report(ProblemResultSubmitVO progress);
+}
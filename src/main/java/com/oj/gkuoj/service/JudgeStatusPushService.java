@@ -0,0 +1,25 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 测评状态 SSE 推送
+ *
+ * @author m969130721@163.com
+ * @date 19-3-23 下午2:20
+ */
+public interface JudgeStatusPushService {
+
+    SseEmitter subscribe(String runNum);
+
+    /**
+     * 推送给本节点上订阅该 runNum 的连接
+     */
+    void publish(ProblemResultSubmitVO progress);
+
+    /**
+     * 发布到 redis 频道,每个节点收到后调用 publish;redis 不可用时只推送本节点
+     */
+    void broadcast(ProblemResultSubmitVO progress);
+}
@@ -0,0 +1,47 @@
+package com.oj.gkuoj.service;
+
+import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.response.ProblemVO;
+import com.oj.gkuoj.response.RestResponseVO;
+
+import java.util.List;
+
+/**
+ * 题目列表内存索引
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午3:05
+ */
+public interface ProblemCatalogService {
+
+    /**
+     * 从库重建本实例的索引
+     */
+    void refresh();
+
+    /**
+     * 题目或标签变更后调用:版本号加一并重建,其他实例比对版本号后重建;在事务中调用时提交后执行
+     */
+    void invalidate();
+
+    RestResponseVO<PageInfo<ProblemVO>> listProblemVO2Page(Integer sort, String keyword, Integer level,
+                                                            List<Integer> tagIdList, Integer pageNum, Integer pageSize);
+
+    /**
+     * 随机一道可见题目的 id
+     */
+    Integer randomProblemId();
+
+    /**
+     * 同难度随机推荐题目
+     */
+    List<ProblemVO> listSuggestProblem(Integer problemId, int row);
+
+    List<ProblemVO> listVisibleProblem();
+
+    /**
+     * 按 id 取可见题目,顺序与入参一致
+     */
+    List<ProblemVO> listVisibleProblemByIds(List<Integer> problemIdList);
+
+}
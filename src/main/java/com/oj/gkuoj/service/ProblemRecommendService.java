@@ -0,0 +1,30 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.ProblemVO;
+
+import java.util.List;
+
+/**
+ * 相似题目推荐
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 上午11:02
+ */
+public interface ProblemRecommendService {
+
+    /**
+     * 全量重建相似度索引
+     */
+    void rebuild();
+
+    /**
+     * 按 update_time 增量读取新的通过记录,只重算受影响题目
+     */
+    void refresh();
+
+    /**
+     * 从相似题目中随机取 row 道,不足时用同难度随机题目补齐
+     */
+    List<ProblemVO> listSuggestProblem(Integer problemId, int row);
+
+}
@@ -1,6 +1,7 @@
 package com.oj.gkuoj.service;
 
 import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.response.CursorPageVO;
 import com.oj.gkuoj.response.ProblemResultDetailVO;
 import com.oj.gkuoj.response.ProblemResultSubmitVO;
 import com.oj.gkuoj.response.ProblemResultVO;
@@ -19,9 +20,19 @@ public interface ProblemResultService {
 
     RestResponseVO insert(ProblemResult problemResult);
 
+    RestResponseVO<String> insertQueuing(ProblemResult problemResult);
+
+    RestResponseVO<ProblemResultSubmitVO> insertByReuse(ProblemResult problemResult);
+
 
     RestResponseVO listProblemResult2Page(Integer problemId, String name, String type, Integer status, Integer pageNum,Integer pageSize);
 
+    /**
+     * 游标翻页,cursor 为空时取第一页
+     */
+    RestResponseVO<CursorPageVO<ProblemResultVO>> listProblemResult2Cursor(Integer problemId, String name, String type,
+                                                                           Integer status, String cursor, Integer pageSize);
+
     RestResponseVO<ProblemResultSubmitVO> getByRunNum2SubmitVO(String runNum);
 
     RestResponseVO<ProblemResultDetailVO> getById2DetailVO(Integer problemResultId);
@@ -3,6 +3,7 @@ package com.oj.gkuoj.service;
 import com.github.pagehelper.PageInfo;
 import com.oj.gkuoj.entity.Problem;
 import com.oj.gkuoj.response.ProblemDetailVO;
+import com.oj.gkuoj.response.ProblemVO;
 import com.oj.gkuoj.response.RestResponseVO;
 
 import java.util.List;
@@ -23,7 +24,7 @@ public interface ProblemService {
 
     RestResponseVO<PageInfo> listProblemVOToPage(Integer userId,Integer sort,String keyword, Integer level, String tagIds, Integer pageNum, Integer pageSize);
 
-    RestResponseVO<List<Problem>> listSuggestProblem(Integer problemId, Integer row);
+    RestResponseVO<List<ProblemVO>> listSuggestProblem(Integer problemId, Integer row);
 
     RestResponseVO<Integer> randomProblemId();
 
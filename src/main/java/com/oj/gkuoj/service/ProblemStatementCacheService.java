@@ -0,0 +1,28 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.ProblemDetailVO;
+
+/**
+ * 题面(描述、输入输出、样例、标签)本地缓存
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午7:20
+ */
+public interface ProblemStatementCacheService {
+
+    /**
+     * 取题面,返回的对象为缓存共享,只读
+     *
+     * @param problemId
+     * @return 题目不存在时返回 null
+     */
+    ProblemDetailVO get(Integer problemId);
+
+    /**
+     * 题目保存或删除后调用:版本号加一使各实例缓存失效,并在本实例重新加载
+     *
+     * @param problemId
+     */
+    void invalidate(Integer problemId);
+
+}
@@ -0,0 +1,39 @@
+package com.oj.gkuoj.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户做题状态(尝试中 / 通过)
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 上午9:30
+ */
+public interface ProblemUserStatusService {
+
+    /**
+     * 提交后记为尝试过
+     *
+     * @param userId
+     * @param problemId
+     */
+    void markTried(Integer userId, Integer problemId);
+
+    /**
+     * 出 AC 结果后记为通过
+     *
+     * @param userId
+     * @param problemId
+     */
+    void markPassed(Integer userId, Integer problemId);
+
+    /**
+     * 批量查询,未提交过的题目不在返回结果中
+     *
+     * @param userId
+     * @param problemIdList
+     * @return problemId -> CommonConst.ProblemUserStatus
+     */
+    Map<Integer, Integer> getStatusMap(Integer userId, List<Integer> problemIdList);
+
+}
@@ -0,0 +1,22 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.ResponseSizeVO;
+import com.oj.gkuoj.response.RestResponseVO;
+
+import java.util.List;
+
+/**
+ * 接口响应体大小统计
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午8:15
+ */
+public interface ResponseSizeService {
+
+    void record(String uri, long bytes);
+
+    RestResponseVO<List<ResponseSizeVO>> listResponseSize();
+
+    RestResponseVO reset();
+
+}
@@ -0,0 +1,25 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+
+/**
+ * 测评实时状态缓存(redis hash,按 runNum)
+ *
+ * @author m969130721@163.com
+ * @date 19-3-24 上午10:20
+ */
+public interface RunStatusCacheService {
+
+    /**
+     * 合并写入非空字段并刷新过期时间,已是最终结果时忽略非最终状态,入队状态只在缓存为空时写入
+     *
+     * @param progress
+     */
+    void put(ProblemResultSubmitVO progress);
+
+    /**
+     * @param runNum
+     * @return 未命中返回 null
+     */
+    ProblemResultSubmitVO get(String runNum);
+}
@@ -0,0 +1,34 @@
+package com.oj.gkuoj.service;
+
+import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.response.ScoreboardVO;
+
+/**
+ * 比赛实时榜单
+ *
+ * @author m969130721@163.com
+ * @date 19-3-26 下午3:40
+ */
+public interface ScoreboardService {
+
+    /**
+     * 比赛提交出最终结果时增量更新榜单
+     *
+     * @param runNum
+     */
+    void update(String runNum);
+
+    RestResponseVO<PageInfo<ScoreboardVO>> listScoreboard2Page(Integer compId, Integer pageNum, Integer pageSize);
+
+    RestResponseVO<ScoreboardVO> getByUserId(Integer compId, Integer userId);
+
+    /**
+     * 按提交顺序从 mysql 重放,重建榜单
+     *
+     * @param compId
+     * @return
+     */
+    RestResponseVO rebuild(Integer compId);
+
+}
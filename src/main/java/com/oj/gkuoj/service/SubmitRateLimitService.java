@@ -0,0 +1,19 @@
+package com.oj.gkuoj.service;
+
+/**
+ * 提交限流(用户/比赛/全局令牌桶)
+ *
+ * @author m969130721@163.com
+ * @date 19-3-25 下午8:10
+ */
+public interface SubmitRateLimitService {
+
+    /**
+     * 尝试获取一次提交的令牌
+     *
+     * @param userId
+     * @param compId 非比赛提交为 null
+     * @return 是否允许提交
+     */
+    boolean tryAcquire(Integer userId, Integer compId);
+}
@@ -10,5 +10,13 @@ public interface TestcaseService {
 
      RestResponseVO listTestcaseByProblemId(Integer problemId);
 
+     /**
+      * 测试用例最后修改时间(ms),包括 input、output 目录本身(增删、重命名文件);目录缺失时返回 Long.MAX_VALUE
+      *
+      * @param problemId
+      * @return
+      */
+     long getLastModified(Integer problemId);
+
 
 }
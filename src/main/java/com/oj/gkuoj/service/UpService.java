@@ -4,6 +4,9 @@ import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.entity.Up;
 import com.oj.gkuoj.response.UpVO;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author m969130721@163.com
  * @date 18-12-23 下午4:54
@@ -19,5 +22,24 @@ public interface UpService {
 
     RestResponseVO<UpVO> blogCommentUp(Integer blogCommentId,Integer userId);
 
+    /**
+     * 点赞数及该用户的点赞状态,userId 为空时状态为 false;redis 不可用时从 mysql 读取
+     */
+    UpVO getUpVO(Integer type, Integer typeId, Integer userId);
+
+    /**
+     * 批量查询该用户的点赞状态,typeId -> 是否已点赞
+     */
+    Map<Integer, Boolean> getUpStatusMap(Integer type, List<Integer> typeIdList, Integer userId);
+
+    /**
+     * 待写回的点赞状态批量写入 mysql
+     */
+    void flush();
+
+    /**
+     * 对账最近写回过的对象,点赞数与 mysql 不一致时重建集合
+     */
+    void reconcile();
 
 }
@@ -0,0 +1,47 @@
+package com.oj.gkuoj.service;
+
+import java.util.List;
+
+/**
+ * 用户积分排名及昵称检索
+ *
+ * @author m969130721@163.com
+ * @date 19-3-27 上午11:05
+ */
+public interface UserRankService {
+
+    /**
+     * 用户新增、修改(含积分)、状态变更后从 mysql 重新读取并更新索引,在事务中时提交后执行
+     * 本实例立即更新,其他实例通过 redis 变更记录在 check-interval 内更新
+     *
+     * @param userId
+     */
+    void refresh(Integer userId);
+
+    void rebuild();
+
+    int count();
+
+    Integer getRank(Integer userId);
+
+    List<Integer> listUserId(int offset, int limit);
+
+    /**
+     * 昵称包含关键字的用户数
+     *
+     * @param keyword
+     * @return
+     */
+    int countByName(String keyword);
+
+    /**
+     * 昵称包含关键字的用户 id,按名次排序取一页
+     *
+     * @param keyword
+     * @param offset
+     * @param limit
+     * @return
+     */
+    List<Integer> listUserIdByName(String keyword, int offset, int limit);
+
+}
@@ -0,0 +1,32 @@
+package com.oj.gkuoj.service;
+
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.response.VerdictCounterStatsVO;
+
+/**
+ * 题目、用户、比赛题目的判题计数,内存累加后批量回写
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午3:20
+ */
+public interface VerdictCounterService {
+
+    /**
+     * 记录一次最终结果,同一 runNum 只计一次
+     *
+     * @param runNum
+     * @param userId
+     * @param problemId
+     * @param compId    非比赛提交为 null
+     * @param status    JudgeStatusEnum
+     */
+    void record(String runNum, Integer userId, Integer problemId, Integer compId, Integer status);
+
+    /**
+     * 把累计的增量写入数据库
+     */
+    void flush();
+
+    RestResponseVO<VerdictCounterStatsVO> getStats();
+
+}
@@ -2,20 +2,24 @@ package com.oj.gkuoj.service.impl;
 
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.common.CommonConst;
 import com.oj.gkuoj.common.RestResponseEnum;
-import com.oj.gkuoj.dao.UpMapper;
-import com.oj.gkuoj.entity.Up;
 import com.oj.gkuoj.response.BlogCommentVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.common.StringConst;
 import com.oj.gkuoj.dao.BlogCommentMapper;
+import com.oj.gkuoj.dao.BlogMapper;
 import com.oj.gkuoj.entity.BlogComment;
 import com.oj.gkuoj.service.BlogCommentService;
+import com.oj.gkuoj.service.BlogHotService;
 import com.oj.gkuoj.service.UpService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author m969130721@163.com
@@ -27,7 +31,13 @@ public class BlogCommentServiceImpl implements BlogCommentService {
     private BlogCommentMapper blogCommentMapper;
 
     @Autowired
-    private UpMapper upMapper;
+    private BlogMapper blogMapper;
+
+    @Autowired
+    private UpService upService;
+
+    @Autowired
+    private BlogHotService blogHotService;
 
     @Override
     public RestResponseVO getById(Integer blogCommentId) {
@@ -39,21 +49,34 @@ public class BlogCommentServiceImpl implements BlogCommentService {
     }
 
     @Override
+    @Transactional
     public RestResponseVO insert(BlogComment blogComment) {
         if (blogComment == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = blogCommentMapper.insertSelective(blogComment);
+        if (effect > 0) {
+            blogMapper.updateReplyStat(blogComment.getBlogId());
+            blogHotService.increaseByReply(blogComment.getBlogId());
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.ADD_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.ADD_FAIL);
     }
 
     @Override
+    @Transactional
     public RestResponseVO delById(Integer id) {
         if (id == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
+        BlogComment blogComment = blogCommentMapper.selectByPrimaryKey(id);
+        if (blogComment == null) {
+            return RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
+        }
         int effect = blogCommentMapper.deleteByPrimaryKey(id);
+        if (effect > 0) {
+            blogMapper.updateReplyStat(blogComment.getBlogId());
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.DEL_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
     }
@@ -72,12 +95,16 @@ public class BlogCommentServiceImpl implements BlogCommentService {
     public RestResponseVO<PageInfo> listByBlogId2Page(Integer userId, Integer sort, Integer pageNum, Integer pageSize, Integer blogId) {
         PageHelper.startPage(pageNum, pageSize);
         List<BlogCommentVO> blogCommentVOList = blogCommentMapper.listBlogCommentVO(sort, blogId);
-        if (userId != null) {
+        if (userId != null && !blogCommentVOList.isEmpty()) {
+            //整页评论一次查出点赞状态
+            List<Integer> blogCommentIdList = new ArrayList<>(blogCommentVOList.size());
+            for (BlogCommentVO blogCommentVO : blogCommentVOList) {
+                blogCommentIdList.add(blogCommentVO.getId());
+            }
+            Map<Integer, Boolean> upStatusMap = upService.getUpStatusMap(CommonConst.UpType.BLOG_COMMENT,
+                    blogCommentIdList, userId);
             for (BlogCommentVO blogCommentVO : blogCommentVOList) {
-                Up up = upMapper.getByBlogCommentIdUserId(blogCommentVO.getId(), userId);
-                if (up != null) {
-                    blogCommentVO.setUserUpStatus(up.getStatus());
-                }
+                blogCommentVO.setUserUpStatus(upStatusMap.getOrDefault(blogCommentVO.getId(), false));
             }
         }
         PageInfo<BlogCommentVO> pageInfo = new PageInfo<>(blogCommentVOList);
@@ -0,0 +1,179 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.dao.BlogMapper;
+import com.oj.gkuoj.response.BlogVO;
+import com.oj.gkuoj.service.BlogHotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 热度存在 redis zset 中,浏览、回复、点赞时 ZINCRBY,读取热门即 ZREVRANGE
+ * 衰减为指数衰减:定时按距上次衰减的时间整体乘以 0.5^(经过时间/半衰期),各帖子的相对顺序只由新近的互动决定
+ * 上次衰减时间不存在时(首次启动或 redis 被清空)按 mysql 中近期帖子的计数和发布时间初始化
+ *
+ * @author m969130721@163.com
+ * @date 19-3-31 上午10:30
+ */
+@Service
+public class BlogHotServiceImpl implements BlogHotService {
+
+    private static final DefaultRedisScript<Long> DECAY_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        DECAY_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/blog_hot_decay.lua")));
+        DECAY_SCRIPT.setResultType(Long.class);
+    }
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private BlogMapper blogMapper;
+
+    @Value("${blog.hot.view-weight:1}")
+    private Double viewWeight;
+
+    @Value("${blog.hot.reply-weight:5}")
+    private Double replyWeight;
+
+    @Value("${blog.hot.up-weight:3}")
+    private Double upWeight;
+
+    /**
+     * 半衰期(ms)
+     */
+    @Value("${blog.hot.half-life:86400000}")
+    private Long halfLife;
+
+    /**
+     * 衰减后低于该分数的帖子移出热门
+     */
+    @Value("${blog.hot.min-score:0.01}")
+    private Double minScore;
+
+    /**
+     * 初始化时只取最近若干个半衰期内有互动的帖子,更早的衰减后可忽略
+     */
+    @Value("${blog.hot.init-half-lives:10}")
+    private Integer initHalfLives;
+
+    private Logger logger = LoggerFactory.getLogger(BlogHotServiceImpl.class);
+
+    @Override
+    public void increaseByView(Integer blogId) {
+        increase(blogId, viewWeight);
+    }
+
+    @Override
+    public void increaseByReply(Integer blogId) {
+        increase(blogId, replyWeight);
+    }
+
+    @Override
+    public void increaseByUp(Integer blogId, boolean status) {
+        //取消点赞扣回,反复点赞不能刷热度
+        increase(blogId, status ? upWeight : -upWeight);
+    }
+
+    @Override
+    public void remove(Integer blogId) {
+        if (blogId == null) {
+            return;
+        }
+        stringRedisTemplate.opsForZSet().remove(RedisKeyConst.KeyPrefix.BLOG_HOT, String.valueOf(blogId));
+    }
+
+    @Override
+    public List<Integer> listHotBlogId(int size) {
+        if (size <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> memberSet = stringRedisTemplate.opsForZSet().reverseRange(RedisKeyConst.KeyPrefix.BLOG_HOT, 0, size - 1);
+        if (memberSet == null || memberSet.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> blogIdList = new ArrayList<>(memberSet.size());
+        for (String member : memberSet) {
+            blogIdList.add(Integer.valueOf(member));
+        }
+        return blogIdList;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.hot.decay-interval:600000}", initialDelay = 0)
+    public void decay() {
+        long now = System.currentTimeMillis();
+        Boolean absent = stringRedisTemplate.opsForValue().setIfAbsent(RedisKeyConst.KeyPrefix.BLOG_HOT_DECAY_AT,
+                String.valueOf(now));
+        if (Boolean.TRUE.equals(absent)) {
+            init(now);
+            return;
+        }
+        stringRedisTemplate.execute(DECAY_SCRIPT,
+                Arrays.asList(RedisKeyConst.KeyPrefix.BLOG_HOT, RedisKeyConst.KeyPrefix.BLOG_HOT_DECAY_AT),
+                String.valueOf(now), String.valueOf(halfLife), String.valueOf(minScore));
+    }
+
+    /**
+     * 按 mysql 中的累计计数初始化,以最后一次互动(发布或回复)的时间衰减到当前
+     * 初始化期间已有的 ZINCRBY 不会丢,分数相加
+     */
+    private void init(long now) {
+        List<BlogVO> blogVOList = blogMapper.listActiveBlogVO(new Date(now - halfLife * initHalfLives));
+        Map<String, Double> scoreMap = new HashMap<>(blogVOList.size() * 2);
+        for (BlogVO blogVO : blogVOList) {
+            double score = value(blogVO.getViewCount()) * viewWeight + value(blogVO.getReplyCount()) * replyWeight
+                    + value(blogVO.getUpCount()) * upWeight;
+            long activeTime = blogVO.getCreateTime() == null ? now : blogVO.getCreateTime().getTime();
+            if (blogVO.getReplyTime() != null) {
+                activeTime = Math.max(activeTime, blogVO.getReplyTime().getTime());
+            }
+            score *= Math.pow(0.5, (double) Math.max(0, now - activeTime) / halfLife);
+            if (score >= minScore) {
+                scoreMap.put(String.valueOf(blogVO.getId()), score);
+            }
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+            scoreMap.forEach((blogId, score) -> stringRedisConnection.zIncrBy(RedisKeyConst.KeyPrefix.BLOG_HOT, score, blogId));
+            return null;
+        });
+        logger.info("热门帖子热度初始化完成,帖子数:{}", scoreMap.size());
+    }
+
+    private void increase(Integer blogId, double weight) {
+        if (blogId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().incrementScore(RedisKeyConst.KeyPrefix.BLOG_HOT, String.valueOf(blogId), weight);
+        } catch (Exception e) {
+            //热度不影响主流程,redis 不可用时丢弃
+            logger.warn("帖子热度累加失败,blogId:{},{}", blogId, e.getMessage());
+        }
+    }
+
+    private static long value(Integer count) {
+        return count == null ? 0 : count;
+    }
+}
@@ -2,20 +2,25 @@ package com.oj.gkuoj.service.impl;
 
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.common.CommonConst;
 import com.oj.gkuoj.common.RestResponseEnum;
-import com.oj.gkuoj.dao.UpMapper;
-import com.oj.gkuoj.entity.Up;
 import com.oj.gkuoj.response.BlogDetailVO;
 import com.oj.gkuoj.response.BlogVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.common.StringConst;
 import com.oj.gkuoj.dao.BlogMapper;
 import com.oj.gkuoj.entity.Blog;
+import com.oj.gkuoj.response.UpVO;
+import com.oj.gkuoj.service.BlogHotService;
 import com.oj.gkuoj.service.BlogService;
+import com.oj.gkuoj.service.UpService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author m969130721@163.com
@@ -27,7 +32,10 @@ public class BlogServiceImpl implements BlogService {
     private BlogMapper blogMapper;
 
     @Autowired
-    private UpMapper upMapper;
+    private UpService upService;
+
+    @Autowired
+    private BlogHotService blogHotService;
 
 
     @Override
@@ -55,6 +63,9 @@ public class BlogServiceImpl implements BlogService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = blogMapper.deleteByPrimaryKey(id);
+        if (effect > 0) {
+            blogHotService.remove(id);
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.DEL_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
     }
@@ -83,28 +94,41 @@ public class BlogServiceImpl implements BlogService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         BlogDetailVO blogDetailVO = blogMapper.getBlogDetailVO(blogId);
-        if (userId != null) {
-            Up up = upMapper.getByBlogIdUserId(blogId, userId);
-            if (up != null) {
-                blogDetailVO.setUserUpStatus(up.getStatus());
-            }
+        if (blogDetailVO != null) {
+            //点赞以 redis 为准,mysql 可能还没写回
+            UpVO upVO = upService.getUpVO(CommonConst.UpType.BLOG, blogId, userId);
+            blogDetailVO.setUpCount(upVO.getCount());
+            blogDetailVO.setUserUpStatus(upVO.getStatus());
         }
         return RestResponseVO.createBySuccess(blogDetailVO);
     }
 
-    @Override
-    public RestResponseVO updateViewCount(Integer blogId) {
-        if (blogId == null) {
-            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
-        }
-        int effect = blogMapper.updateViewCountIncrease(blogId);
-        return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
-                : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
-    }
-
     @Override
     public RestResponseVO listHotBlogVO(Integer pageSize) {
-        List<BlogVO> blogVOList = blogMapper.listHotBlogVO(pageSize);
+        List<Integer> blogIdList = blogHotService.listHotBlogId(pageSize);
+        if (blogIdList.isEmpty()) {
+            return RestResponseVO.createBySuccess(blogMapper.listHotBlogVO(pageSize));
+        }
+        //按热度顺序排列,已删除的帖子跳过
+        Map<Integer, BlogVO> blogVOMap = new HashMap<>();
+        for (BlogVO blogVO : blogMapper.listBlogVOByIds(blogIdList)) {
+            blogVOMap.put(blogVO.getId(), blogVO);
+        }
+        List<BlogVO> blogVOList = new ArrayList<>(pageSize);
+        for (Integer blogId : blogIdList) {
+            BlogVO blogVO = blogVOMap.get(blogId);
+            if (blogVO != null) {
+                blogVOList.add(blogVO);
+            }
+        }
+        //近期有互动的帖子不足时按累计计数补齐
+        if (blogVOList.size() < pageSize) {
+            for (BlogVO blogVO : blogMapper.listHotBlogVO(pageSize)) {
+                if (blogVOList.size() < pageSize && !blogVOMap.containsKey(blogVO.getId())) {
+                    blogVOList.add(blogVO);
+                }
+            }
+        }
         return RestResponseVO.createBySuccess(blogVOList);
     }
 
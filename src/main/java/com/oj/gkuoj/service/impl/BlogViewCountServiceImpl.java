@@ -0,0 +1,151 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.dao.BlogMapper;
+import com.oj.gkuoj.service.BlogHotService;
+import com.oj.gkuoj.service.BlogViewCountService;
+import com.oj.gkuoj.utils.UUIDUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 浏览时只执行一次 redis 脚本(去重 + HINCRBY),请求线程不再写库
+ * 定时把待写回 hash 整体改名后取出,分批用一条 update 写回;写回失败保留改名后的 hash,下次重试
+ * 多实例通过写回锁保证同一批计数只写回一次
+ *
+ * @author m969130721@163.com
+ * @date 19-3-30 下午2:30
+ */
+@Service
+public class BlogViewCountServiceImpl implements BlogViewCountService {
+
+    private static final DefaultRedisScript<Long> VIEW_SCRIPT = new DefaultRedisScript<>();
+
+    private static final DefaultRedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>();
+
+    private static final DefaultRedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        VIEW_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/blog_view.lua")));
+        VIEW_SCRIPT.setResultType(Long.class);
+        TAKE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/pending_take.lua")));
+        TAKE_SCRIPT.setResultType(List.class);
+        FINISH_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/pending_finish.lua")));
+        FINISH_SCRIPT.setResultType(Long.class);
+    }
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private BlogMapper blogMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BlogHotService blogHotService;
+
+    /**
+     * 同一访客重复浏览不计数的时间(秒),0 表示不去重
+     */
+    @Value("${blog.view.dedup-seconds:1800}")
+    private Long dedupSeconds;
+
+    @Value("${blog.view.batch-size:500}")
+    private Integer batchSize;
+
+    @Value("${blog.view.lock-millis:60000}")
+    private Long lockMillis;
+
+    private final String lockOwner = UUIDUtil.createByAPI36();
+
+    private Logger logger = LoggerFactory.getLogger(BlogViewCountServiceImpl.class);
+
+    @Override
+    public void increase(Integer blogId, String visitor) {
+        if (blogId == null) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(2);
+        keys.add(RedisKeyConst.KeyPrefix.BLOG_VIEW_PENDING);
+        if (dedupSeconds > 0 && StringUtils.isNotBlank(visitor)) {
+            keys.add(RedisKeyConst.KeyPrefix.BLOG_VIEW_SEEN + blogId + "_" + visitor);
+        }
+        try {
+            Long counted = stringRedisTemplate.execute(VIEW_SCRIPT, keys, String.valueOf(blogId), String.valueOf(dedupSeconds));
+            if (Long.valueOf(1).equals(counted)) {
+                blogHotService.increaseByView(blogId);
+            }
+        } catch (Exception e) {
+            //浏览数不影响页面展示,redis 不可用时丢弃
+            logger.warn("帖子浏览计数失败,blogId:{},{}", blogId, e.getMessage());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.view.flush-interval:10000}")
+    public void flush() {
+        List<?> entries = stringRedisTemplate.execute(TAKE_SCRIPT,
+                Arrays.asList(RedisKeyConst.KeyPrefix.BLOG_VIEW_PENDING, RedisKeyConst.KeyPrefix.BLOG_VIEW_FLUSHING,
+                        RedisKeyConst.KeyPrefix.BLOG_VIEW_FLUSH_LOCK),
+                lockOwner, String.valueOf(lockMillis));
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        boolean success = false;
+        try {
+            //HGETALL 结果为 field、value 交替
+            Map<Integer, Long> viewCountMap = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < entries.size(); i += 2) {
+                viewCountMap.put(Integer.valueOf(entries.get(i).toString()), Long.valueOf(entries.get(i + 1).toString()));
+            }
+            List<Integer> blogIdList = new ArrayList<>(viewCountMap.keySet());
+            //分批在同一事务中,失败时整体回滚,重试不会重复累加
+            transactionTemplate.execute(status -> {
+                for (int from = 0; from < blogIdList.size(); from += batchSize) {
+                    Map<Integer, Long> batch = new LinkedHashMap<>();
+                    for (Integer blogId : blogIdList.subList(from, Math.min(from + batchSize, blogIdList.size()))) {
+                        batch.put(blogId, viewCountMap.get(blogId));
+                    }
+                    blogMapper.updateViewCountByDelta(batch);
+                }
+                return null;
+            });
+            success = true;
+            logger.debug("帖子浏览数写回完成,帖子数:{}", viewCountMap.size());
+        } catch (Exception e) {
+            logger.error("帖子浏览数写回失败,下次重试", e);
+        } finally {
+            stringRedisTemplate.execute(FINISH_SCRIPT,
+                    Arrays.asList(RedisKeyConst.KeyPrefix.BLOG_VIEW_FLUSHING, RedisKeyConst.KeyPrefix.BLOG_VIEW_FLUSH_LOCK),
+                    lockOwner, success ? "1" : "0");
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("停机前帖子浏览数写回失败,保留在 redis 中由其他实例写回,{}", e.getMessage());
+        }
+    }
+}
@@ -9,9 +9,14 @@ import com.oj.gkuoj.response.CompetitionProblemVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.service.CompetitionProblemService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author m969130721@163.com
@@ -22,6 +27,15 @@ public class CompetitionProblemServiceImpl implements CompetitionProblemService
 
     @Autowired
     private CompetitionProblemMapper competitionProblemMapper;
+
+    @Value("${competition.score-cache.ttl:60000}")
+    private long scoreCacheTtl;
+
+    /**
+     * 比赛题目分值缓存 compId -> (problemId -> score),比赛题目变更时清空
+     */
+    private final Map<Integer, ScoreTable> scoreTableCache = new ConcurrentHashMap<>();
+
     @Override
     public RestResponseVO getById(Integer id) {
         if (id == null) {
@@ -37,6 +51,7 @@ public class CompetitionProblemServiceImpl implements CompetitionProblemService
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = competitionProblemMapper.insertSelective(competitionProblem);
+        scoreTableCache.clear();
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.ADD_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.ADD_FAIL);
     }
@@ -47,6 +62,7 @@ public class CompetitionProblemServiceImpl implements CompetitionProblemService
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = competitionProblemMapper.deleteByPrimaryKey(id);
+        scoreTableCache.clear();
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.DEL_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
     }
@@ -57,6 +73,7 @@ public class CompetitionProblemServiceImpl implements CompetitionProblemService
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = competitionProblemMapper.updateByPrimaryKeySelective(competitionProblem);
+        scoreTableCache.clear();
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
     }
@@ -79,4 +96,35 @@ public class CompetitionProblemServiceImpl implements CompetitionProblemService
         Integer score = competitionProblemMapper.getScoreByCompIdProblemId(compId, problemId);
         return RestResponseVO.createBySuccess(score);
     }
+
+    @Override
+    public RestResponseVO<Map<Integer, Integer>> getScoreMapByCompId(Integer compId) {
+        if (compId == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        long now = System.currentTimeMillis();
+        ScoreTable scoreTable = scoreTableCache.get(compId);
+        if (scoreTable == null || scoreTable.expireAt < now) {
+            Map<Integer, Integer> scoreMap = new HashMap<>(16);
+            for (CompetitionProblem competitionProblem : competitionProblemMapper.listScoreByCompId(compId)) {
+                scoreMap.put(competitionProblem.getProblemId(), competitionProblem.getScore());
+            }
+            scoreTable = new ScoreTable(Collections.unmodifiableMap(scoreMap), now + scoreCacheTtl);
+            scoreTableCache.put(compId, scoreTable);
+        }
+        return RestResponseVO.createBySuccess(scoreTable.scoreMap);
+    }
+
+
+    private static class ScoreTable {
+
+        private final Map<Integer, Integer> scoreMap;
+
+        private final long expireAt;
+
+        ScoreTable(Map<Integer, Integer> scoreMap, long expireAt) {
+            this.scoreMap = scoreMap;
+            this.expireAt = expireAt;
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.JudgeStatusEnum;
+import com.oj.gkuoj.common.RestResponseEnum;
+import com.oj.gkuoj.dao.ProblemResultMapper;
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.service.JudgeResultService;
+import com.oj.gkuoj.service.JudgeStatusPushService;
+import com.oj.gkuoj.service.ProblemUserStatusService;
+import com.oj.gkuoj.service.RunStatusCacheService;
+import com.oj.gkuoj.service.ScoreboardService;
+import com.oj.gkuoj.service.VerdictCounterService;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * @author m969130721@163.com
+ * @date 19-3-23 下午2:30
+ */
+@Service
+public class JudgeResultServiceImpl implements JudgeResultService {
+
+    @Autowired
+    private ProblemResultMapper problemResultMapper;
+
+    @Autowired
+    private JudgeStatusPushService judgeStatusPushService;
+
+    @Autowired
+    private RunStatusCacheService runStatusCacheService;
+
+    @Autowired
+    private ScoreboardService scoreboardService;
+
+    @Autowired
+    private ProblemUserStatusService problemUserStatusService;
+
+    @Autowired
+    private VerdictCounterService verdictCounterService;
+
+    @Override
+    public RestResponseVO report(ProblemResultSubmitVO progress) {
+        if (progress == null || StringUtils.isBlank(progress.getRunNum()) || progress.getStatus() == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        if (progress.getTestcaseNum() == null && JudgeStatusEnum.isFinal(progress.getStatus())) {
+            problemResultMapper.updateScoreByRunNum(progress.getRunNum());
+            scoreboardService.update(progress.getRunNum());
+            ProblemResultSubmitVO submitVO = resolveSubmit(progress);
+            if (submitVO != null) {
+                verdictCounterService.record(progress.getRunNum(), submitVO.getUserId(), submitVO.getProblemId(),
+                        submitVO.getCompId(), progress.getStatus());
+                if (JudgeStatusEnum.ACCEPTED.getStatus().equals(progress.getStatus())) {
+                    problemUserStatusService.markPassed(submitVO.getUserId(), submitVO.getProblemId());
+                }
+            }
+        }
+        runStatusCacheService.put(progress);
+        judgeStatusPushService.broadcast(progress);
+        return RestResponseVO.createBySuccess();
+    }
+
+    /**
+     * 判题机上报的结果不一定带用户、题目和比赛,依次从上报内容、状态缓存(入队时写入)、数据库中取
+     */
+    private ProblemResultSubmitVO resolveSubmit(ProblemResultSubmitVO progress) {
+        if (progress.getUserId() != null && progress.getProblemId() != null && progress.getCompId() != null) {
+            return progress;
+        }
+        ProblemResultSubmitVO submitVO = runStatusCacheService.get(progress.getRunNum());
+        if (submitVO == null || submitVO.getUserId() == null || submitVO.getProblemId() == null) {
+            submitVO = problemResultMapper.getByRunNum2SubmitVO(progress.getRunNum());
+        }
+        return submitVO;
+    }
+}
@@ -0,0 +1,106 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.JudgeStatusEnum;
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.service.JudgeStatusPushService;
+import com.oj.gkuoj.service.ProblemResultService;
+import com.oj.gkuoj.utils.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 按 runNum 维护订阅连接,判题进度到达时推送,最终结果推送后关闭连接
+ * 基于 servlet 异步,等待期间不占用 tomcat 线程
+ * 订阅连接可能在任意节点上,判题结果经 redis 频道发布到所有节点,由 JudgeStatusListener 调用 publish
+ *
+ * @author m969130721@163.com
+ * @date 19-3-23 下午2:40
+ */
+@Service
+public class JudgeStatusPushServiceImpl implements JudgeStatusPushService {
+
+    private static final String EVENT_NAME = "status";
+
+    @Autowired
+    private ProblemResultService problemResultService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${judge.push.timeout:120000}")
+    private long timeout;
+
+    private final Map<String, List<SseEmitter>> emitterMap = new ConcurrentHashMap<>();
+
+    private Logger logger = LoggerFactory.getLogger(JudgeStatusPushServiceImpl.class);
+
+    @Override
+    public SseEmitter subscribe(String runNum) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        List<SseEmitter> emitterList = emitterMap.computeIfAbsent(runNum, key -> new CopyOnWriteArrayList<>());
+        emitterList.add(emitter);
+        emitter.onCompletion(() -> remove(runNum, emitter));
+        emitter.onTimeout(() -> remove(runNum, emitter));
+
+        //先推送当前状态,避免订阅前已发生的变化丢失
+        ProblemResultSubmitVO current = problemResultService.getByRunNum2SubmitVO(runNum).getData();
+        if (current != null) {
+            send(runNum, emitter, current);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void publish(ProblemResultSubmitVO progress) {
+        List<SseEmitter> emitterList = emitterMap.get(progress.getRunNum());
+        if (emitterList == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitterList) {
+            send(progress.getRunNum(), emitter, progress);
+        }
+    }
+
+    @Override
+    public void broadcast(ProblemResultSubmitVO progress) {
+        try {
+            stringRedisTemplate.convertAndSend(RedisKeyConst.KeyPrefix.JUDGE_STATUS_CHANNEL, JsonUtil.obj2String(progress));
+        } catch (Exception e) {
+            logger.warn("测评状态发布失败,只推送本节点,runNum:{},{}", progress.getRunNum(), e.getMessage());
+            publish(progress);
+        }
+    }
+
+    private void send(String runNum, SseEmitter emitter, ProblemResultSubmitVO progress) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress, MediaType.APPLICATION_JSON));
+            if (progress.getTestcaseNum() == null && JudgeStatusEnum.isFinal(progress.getStatus())) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            //客户端已断开
+            logger.debug("测评状态推送失败,runNum:{},{}", runNum, e.getMessage());
+            remove(runNum, emitter);
+        }
+    }
+
+    private void remove(String runNum, SseEmitter emitter) {
+        emitterMap.computeIfPresent(runNum, (key, emitterList) -> {
+            emitterList.remove(emitter);
+            return emitterList.isEmpty() ? null : emitterList;
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package com.oj.gkuoj.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.common.RestResponseEnum;
+import com.oj.gkuoj.dao.ProblemMapper;
+import com.oj.gkuoj.response.ProblemVO;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.service.ProblemCatalogService;
+import com.oj.gkuoj.utils.ProblemCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 题目列表筛选、计数、分页都在内存快照上完成,不再每次查库
+ * 快照只读,重建后整体替换,读无需加锁
+ * 随机跳题、推荐题目也在快照上按下标抽样,代替 order by rand()
+ * 题目、标签写操作后版本号加一并重建,其他实例读取前最多每 check-interval 比对一次 redis 中的版本号,落后即重建
+ * 提交数等计数由 VerdictCounterService 批量回写库,定时重建刷新
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午3:12
+ */
+@Service
+public class ProblemCatalogServiceImpl implements ProblemCatalogService {
+
+    @Autowired
+    private ProblemMapper problemMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${problem.catalog.check-interval:1000}")
+    private Long checkInterval;
+
+    private volatile ProblemCatalog problemCatalog = new ProblemCatalog(Collections.emptyList());
+
+    /**
+     * 当前快照对应的版本号,构建前读取;-1 表示构建时 redis 不可用
+     */
+    private volatile long catalogVersion = -1;
+
+    private volatile long checkTime;
+
+    private Logger logger = LoggerFactory.getLogger(ProblemCatalogServiceImpl.class);
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${problem.catalog.refresh-interval:60000}", initialDelayString = "${problem.catalog.refresh-interval:60000}")
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        //先取版本再查库,查库期间有变更时版本落后,下次比对会再重建
+        Long version = getVersion();
+        List<ProblemVO> problemList = problemMapper.listAll2VO(null, null, null, null);
+        problemCatalog = new ProblemCatalog(problemList);
+        catalogVersion = version == null ? -1 : version;
+        checkTime = start;
+        logger.debug("题目索引重建完成,题目数:{},耗时:{}ms", problemList.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public RestResponseVO<PageInfo<ProblemVO>> listProblemVO2Page(Integer sort, String keyword, Integer level,
+                                                                   List<Integer> tagIdList, Integer pageNum, Integer pageSize) {
+        if (pageNum == null || pageSize == null || pageNum < 1 || pageSize < 1) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        ProblemCatalog catalog = current();
+        BitSet matched = catalog.filter(keyword, level, tagIdList);
+        Page<ProblemVO> page = new Page<>(pageNum, pageSize);
+        page.setTotal(matched.cardinality());
+        page.addAll(catalog.page(matched, sort, (pageNum - 1) * pageSize, pageSize));
+        return RestResponseVO.createBySuccess(new PageInfo<>(page));
+    }
+
+    @Override
+    public Integer randomProblemId() {
+        return current().randomId();
+    }
+
+    @Override
+    public List<ProblemVO> listSuggestProblem(Integer problemId, int row) {
+        return current().sampleSameLevel(problemId, row);
+    }
+
+    @Override
+    public List<ProblemVO> listVisibleProblem() {
+        return current().listVisible();
+    }
+
+    @Override
+    public List<ProblemVO> listVisibleProblemByIds(List<Integer> problemIdList) {
+        return current().listVisibleByIds(problemIdList);
+    }
+
+    @Override
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //提交前重建会读到旧数据,且版本号已加一,其他实例也不会再重建
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    increaseVersionAndRefresh();
+                }
+            });
+        } else {
+            increaseVersionAndRefresh();
+        }
+    }
+
+    private void increaseVersionAndRefresh() {
+        try {
+            stringRedisTemplate.opsForValue().increment(RedisKeyConst.KeyPrefix.PROBLEM_CATALOG_VERSION, 1);
+        } catch (Exception e) {
+            //其他实例最多在 refresh-interval 后重建
+            logger.warn("题目索引版本号更新失败,{}", e.getMessage());
+        }
+        refresh();
+    }
+
+    /**
+     * 最多每 check-interval 比对一次版本号,其他实例改过题目时先重建再返回
+     */
+    private ProblemCatalog current() {
+        long now = System.currentTimeMillis();
+        if (now - checkTime >= checkInterval) {
+            checkTime = now;
+            Long version = getVersion();
+            if (version != null && version != catalogVersion) {
+                refresh();
+            }
+        }
+        return problemCatalog;
+    }
+
+    /**
+     * redis 不可用时返回 null,视为版本未变
+     */
+    private Long getVersion() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(RedisKeyConst.KeyPrefix.PROBLEM_CATALOG_VERSION);
+            return version == null ? 0L : Long.valueOf(version);
+        } catch (Exception e) {
+            logger.warn("题目索引版本号读取失败,{}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.dao.ProblemResultMapper;
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.response.ProblemVO;
+import com.oj.gkuoj.service.ProblemCatalogService;
+import com.oj.gkuoj.service.ProblemRecommendService;
+import com.oj.gkuoj.utils.ProblemSimilarityIndex;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 每题的相似题目在后台任务中预先算好,请求只读内存中的结果,不查库
+ * 结果表整体替换(写时复制),读无需加锁;索引本身只在加锁的后台任务中修改
+ * 增量:按 (update_time, id) 读取新的通过记录,重算新通过题目及该用户已通过题目的相似列表
+ * 早先提交、后来才判为通过的记录 id 较小,按 id 读取会漏掉;每次从上次读到的 update_time 往前回退一个窗口,
+ * 覆盖事务提交晚于时间戳的记录,重复读到的记录 addSolved 返回 false,不会重复计算
+ * 题目或标签变化时全量重算相似列表,另定时全量重建兜底
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 上午11:20
+ */
+@Service
+public class ProblemRecommendServiceImpl implements ProblemRecommendService {
+
+    /**
+     * 每批读取的通过记录数
+     */
+    private static final int BATCH_SIZE = 10000;
+
+    @Autowired
+    private ProblemResultMapper problemResultMapper;
+
+    @Autowired
+    private ProblemCatalogService problemCatalogService;
+
+    @Value("${problem.recommend.top-k:10}")
+    private Integer topK;
+
+    @Value("${problem.recommend.tag-weight:0.5}")
+    private Double tagWeight;
+
+    @Value("${problem.recommend.overlap-window:60000}")
+    private Long overlapWindow;
+
+    private ProblemSimilarityIndex similarityIndex;
+
+    /**
+     * 已读取通过记录的最大 update_time
+     */
+    private Date lastUpdateTime;
+
+    /**
+     * 题目 id -> 相似题目 id,只整体替换
+     */
+    private volatile Map<Integer, int[]> similarMap = Collections.emptyMap();
+
+    private Logger logger = LoggerFactory.getLogger(ProblemRecommendServiceImpl.class);
+
+    @Override
+    @Scheduled(fixedDelayString = "${problem.recommend.rebuild-interval:86400000}", initialDelay = 0)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        similarityIndex = new ProblemSimilarityIndex(tagWeight);
+        similarityIndex.setProblemTags(loadProblemTags());
+        lastUpdateTime = null;
+        loadAccepted(null);
+        Map<Integer, int[]> newSimilarMap = new HashMap<>();
+        for (Integer problemId : similarityIndex.problemIds()) {
+            newSimilarMap.put(problemId, similarityIndex.topK(problemId, topK));
+        }
+        similarMap = newSimilarMap;
+        logger.info("推荐题目索引重建完成,题目数:{},耗时:{}ms", newSimilarMap.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${problem.recommend.refresh-interval:300000}",
+            initialDelayString = "${problem.recommend.refresh-interval:300000}")
+    public synchronized void refresh() {
+        if (similarityIndex == null) {
+            rebuild();
+            return;
+        }
+        Map<Integer, int[]> problemTagMap = loadProblemTags();
+        Set<Integer> dirtySet = new HashSet<>();
+        loadAccepted(dirtySet);
+        if (!similarityIndex.sameProblemTags(problemTagMap)) {
+            //题目增删、隐藏或标签变更,候选集整体变化,全部重算
+            similarityIndex.setProblemTags(problemTagMap);
+            dirtySet.addAll(problemTagMap.keySet());
+            dirtySet.addAll(similarMap.keySet());
+        }
+        if (dirtySet.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Map<Integer, int[]> newSimilarMap = new HashMap<>(similarMap);
+        for (Integer problemId : dirtySet) {
+            int[] similarIds = similarityIndex.topK(problemId, topK);
+            if (similarIds.length == 0) {
+                newSimilarMap.remove(problemId);
+            } else {
+                newSimilarMap.put(problemId, similarIds);
+            }
+        }
+        similarMap = newSimilarMap;
+        logger.debug("推荐题目索引增量更新,重算题目数:{},耗时:{}ms", dirtySet.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<ProblemVO> listSuggestProblem(Integer problemId, int row) {
+        int[] similarIds = similarMap.get(problemId);
+        List<ProblemVO> suggestList = new ArrayList<>(row);
+        if (similarIds != null && similarIds.length > 0) {
+            //前 k 个相似题目中随机取,换一批时结果不同
+            List<Integer> idList = new ArrayList<>(similarIds.length);
+            for (int similarId : similarIds) {
+                idList.add(similarId);
+            }
+            Collections.shuffle(idList, ThreadLocalRandom.current());
+            suggestList.addAll(problemCatalogService.listVisibleProblemByIds(idList.subList(0, Math.min(row, idList.size()))));
+        }
+        if (suggestList.size() < row) {
+            Set<Integer> idSet = new HashSet<>();
+            for (ProblemVO problemVO : suggestList) {
+                idSet.add(problemVO.getId());
+            }
+            for (ProblemVO problemVO : problemCatalogService.listSuggestProblem(problemId, row)) {
+                if (suggestList.size() < row && idSet.add(problemVO.getId())) {
+                    suggestList.add(problemVO);
+                }
+            }
+        }
+        return suggestList;
+    }
+
+    /**
+     * 可见题目及其标签 id(升序)
+     */
+    private Map<Integer, int[]> loadProblemTags() {
+        List<ProblemVO> problemList = problemCatalogService.listVisibleProblem();
+        Map<Integer, int[]> problemTagMap = new HashMap<>(problemList.size() * 2);
+        for (ProblemVO problemVO : problemList) {
+            int[] tagIds = new int[0];
+            if (StringUtils.isNoneBlank(problemVO.getTagIds())) {
+                tagIds = Arrays.stream(problemVO.getTagIds().split(","))
+                        .mapToInt(tagId -> Integer.parseInt(tagId.trim())).distinct().sorted().toArray();
+            }
+            problemTagMap.put(problemVO.getId(), tagIds);
+        }
+        return problemTagMap;
+    }
+
+    /**
+     * 从 lastUpdateTime 往前回退 overlapWindow 起,按 (update_time, id) 分批读取通过记录
+     *
+     * @param dirtySet 不为空时收集相似列表需要重算的题目
+     */
+    private void loadAccepted(Set<Integer> dirtySet) {
+        Date lastTime = lastUpdateTime == null ? null : new Date(lastUpdateTime.getTime() - overlapWindow);
+        Integer lastId = 0;
+        List<ProblemResultSubmitVO> acceptedList;
+        do {
+            acceptedList = problemResultMapper.listAcceptedAfterUpdateTime(lastTime, lastId, BATCH_SIZE);
+            for (ProblemResultSubmitVO accepted : acceptedList) {
+                lastTime = accepted.getUpdateTime();
+                lastId = accepted.getId();
+                if (similarityIndex.addSolved(accepted.getUserId(), accepted.getProblemId()) && dirtySet != null) {
+                    dirtySet.addAll(similarityIndex.listSolved(accepted.getUserId()));
+                }
+            }
+        } while (acceptedList.size() == BATCH_SIZE);
+        if (lastTime != null && (lastUpdateTime == null || lastTime.after(lastUpdateTime))) {
+            lastUpdateTime = lastTime;
+        }
+    }
+}
@@ -2,22 +2,39 @@ package com.oj.gkuoj.service.impl;
 
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.common.CommonConst;
 import com.oj.gkuoj.common.JudgeStatusEnum;
 import com.oj.gkuoj.common.RestResponseEnum;
+import com.oj.gkuoj.dao.JudgeOutboxMapper;
+import com.oj.gkuoj.dao.ProblemMapper;
 import com.oj.gkuoj.dao.TestcaseResultMapper;
+import com.oj.gkuoj.entity.JudgeOutbox;
 import com.oj.gkuoj.entity.TestcaseResult;
+import com.oj.gkuoj.producer.JudgePriorityPolicy;
 import com.oj.gkuoj.response.*;
 import com.oj.gkuoj.common.StringConst;
 import com.oj.gkuoj.dao.ProblemResultMapper;
 import com.oj.gkuoj.entity.ProblemResult;
 import com.oj.gkuoj.service.CompetitionProblemService;
 import com.oj.gkuoj.service.ProblemResultService;
+import com.oj.gkuoj.service.RunStatusCacheService;
+import com.oj.gkuoj.service.TestcaseService;
+import com.oj.gkuoj.utils.JsonUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.thymeleaf.templateresolver.ITemplateResolver;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author m969130721@163.com
@@ -25,12 +42,33 @@ import java.util.List;
  */
 @Service
 public class ProblemResultServiceImpl implements ProblemResultService {
+
+    /**
+     * 游标翻页每页最大条数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     @Autowired
     private ProblemResultMapper problemResultMapper;
 
     @Autowired
     private TestcaseResultMapper testcaseResultMapper;
 
+    @Autowired
+    private ProblemMapper problemMapper;
+
+    @Autowired
+    private JudgeOutboxMapper judgeOutboxMapper;
+
+    @Autowired
+    private RunStatusCacheService runStatusCacheService;
+
+    @Autowired
+    private TestcaseService testcaseService;
+
+    @Autowired
+    private JudgePriorityPolicy judgePriorityPolicy;
+
     @Autowired
     private CompetitionProblemService competitionProblemService;
 
@@ -66,33 +104,130 @@ public class ProblemResultServiceImpl implements ProblemResultService {
     }
 
     @Override
-    public RestResponseVO<PageInfo> listProblemResult2Page(Integer problemId, String name, String type, Integer status, Integer pageNum, Integer pageSize) {
-        PageHelper.startPage(pageNum, pageSize, true);
-        List<ProblemResultVO> problemResultList = problemResultMapper.listProblemResult(problemId, name, type, status);
-        for (ProblemResultVO problemResultVO : problemResultList) {
-            List<TestcaseResult> testcaseResultList = testcaseResultMapper.listByProblemResultId(problemResultVO.getId());
-            if (testcaseResultList != null) {
-                int acCount = 0;
-                for (TestcaseResult testcaseResult : testcaseResultList) {
-                    if (JudgeStatusEnum.ACCEPTED.getStatus().equals(testcaseResult.getStatus())) {
-                        acCount++;
-                    }
-                }
-                int score = (int) ((acCount * 1.0 / testcaseResultList.size()) * 100);
-                problemResultVO.setScore(score);
+    @Transactional
+    public RestResponseVO<String> insertQueuing(ProblemResult problemResult) {
+        if (problemResult == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        problemResultMapper.insertSelective(problemResult);
+        //与 QUEUING 记录同一事务写入 outbox,由 JudgeOutboxRelay 异步投递
+        JudgeOutbox judgeOutbox = new JudgeOutbox();
+        judgeOutbox.setProReId(problemResult.getId());
+        judgeOutbox.setRunNum(problemResult.getRunNum());
+        judgeOutbox.setPayload(JsonUtil.obj2String(problemResult));
+        judgeOutbox.setStatus(CommonConst.OutboxStatus.UNSENT);
+        judgeOutbox.setSortKey(judgePriorityPolicy.sortKey(problemResult.getPriority(), System.currentTimeMillis()));
+        judgeOutboxMapper.insertSelective(judgeOutbox);
+
+        ProblemResultSubmitVO queuing = new ProblemResultSubmitVO();
+        queuing.setId(problemResult.getId());
+        queuing.setRunNum(problemResult.getRunNum());
+        queuing.setUserId(problemResult.getUserId());
+        queuing.setProblemId(problemResult.getProblemId());
+        queuing.setCompId(problemResult.getCompId());
+        queuing.setStatus(problemResult.getStatus());
+        //事务提交后再写缓存,回滚时不会留下查不到记录的排队状态
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                runStatusCacheService.put(queuing);
             }
+        });
+        return RestResponseVO.createBySuccess(problemResult.getRunNum());
+    }
 
+    /**
+     * 同一题目、语言、比赛下代码指纹相同且测试用例、时间内存限制之后未修改,直接复用上次的结果和测试点结果
+     *
+     * @param problemResult
+     * @return 可复用时返回最终结果,否则 data 为 null
+     */
+    @Override
+    @Transactional
+    public RestResponseVO<ProblemResultSubmitVO> insertByReuse(ProblemResult problemResult) {
+        if (problemResult == null || StringUtils.isBlank(problemResult.getSourceHash())) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        ProblemResult judged = problemResultMapper.getLastJudgedBySourceHash(problemResult.getProblemId(),
+                problemResult.getType(), problemResult.getCompId(), problemResult.getSourceHash());
+        if (judged == null || judged.getUpdateTime() == null
+                || judged.getUpdateTime().getTime() <= testcaseService.getLastModified(problemResult.getProblemId())) {
+            return RestResponseVO.createBySuccess();
         }
+        Date limitUpdateTime = problemMapper.getLimitUpdateTime(problemResult.getProblemId());
+        if (limitUpdateTime != null && judged.getUpdateTime().getTime() <= limitUpdateTime.getTime()) {
+            return RestResponseVO.createBySuccess();
+        }
+        problemResult.setStatus(judged.getStatus());
+        problemResult.setTime(judged.getTime());
+        problemResult.setMemory(judged.getMemory());
+        problemResult.setErrorMsg(judged.getErrorMsg());
+        problemResult.setCompScore(judged.getCompScore());
+        problemResultMapper.insertSelective(problemResult);
+        testcaseResultMapper.copyByProblemResultId(judged.getId(), problemResult.getId());
+
+        ProblemResultSubmitVO resultSubmitVO = new ProblemResultSubmitVO();
+        resultSubmitVO.setId(problemResult.getId());
+        resultSubmitVO.setRunNum(problemResult.getRunNum());
+        resultSubmitVO.setUserId(problemResult.getUserId());
+        resultSubmitVO.setProblemId(problemResult.getProblemId());
+        resultSubmitVO.setCompId(problemResult.getCompId());
+        resultSubmitVO.setStatus(problemResult.getStatus());
+        resultSubmitVO.setTime(problemResult.getTime());
+        resultSubmitVO.setMemory(problemResult.getMemory());
+        return RestResponseVO.createBySuccess(resultSubmitVO);
+    }
+
+    @Override
+    public RestResponseVO<PageInfo> listProblemResult2Page(Integer problemId, String name, String type, Integer status, Integer pageNum, Integer pageSize) {
+        PageHelper.startPage(pageNum, pageSize, true);
+        //score 在出最终结果时已写入 problem_result
+        List<ProblemResultVO> problemResultList = problemResultMapper.listProblemResult(problemId, name, type, status);
         PageInfo<ProblemResultVO> pageInfo = new PageInfo<ProblemResultVO>(problemResultList);
         return RestResponseVO.createBySuccess(pageInfo);
     }
 
+    @Override
+    public RestResponseVO<CursorPageVO<ProblemResultVO>> listProblemResult2Cursor(Integer problemId, String name, String type,
+                                                                                  Integer status, String cursor, Integer pageSize) {
+        if (pageSize == null || pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        Date cursorTime = null;
+        Integer cursorId = null;
+        if (StringUtils.isNotBlank(cursor)) {
+            //游标为 base64url("create_time 毫秒:id")
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+                cursorTime = new Date(Long.parseLong(parts[0]));
+                cursorId = Integer.valueOf(parts[1]);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+            }
+        }
+        //多取一条判断是否还有下一页
+        List<ProblemResultVO> problemResultList = problemResultMapper.listProblemResultByCursor(problemId, name, type,
+                status, cursorTime, cursorId, pageSize + 1);
+        String nextCursor = null;
+        if (problemResultList.size() > pageSize) {
+            problemResultList = problemResultList.subList(0, pageSize);
+            ProblemResultVO last = problemResultList.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreateTime().getTime() + ":" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return RestResponseVO.createBySuccess(new CursorPageVO<>(problemResultList, nextCursor));
+    }
+
     @Override
     public RestResponseVO<ProblemResultSubmitVO> getByRunNum2SubmitVO(String runNum) {
         if (StringUtils.isBlank(runNum)) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
-        ProblemResultSubmitVO resultSubmitVO = problemResultMapper.getByRunNum2SubmitVO(runNum);
+        ProblemResultSubmitVO resultSubmitVO = runStatusCacheService.get(runNum);
+        if (resultSubmitVO == null || resultSubmitVO.getId() == null) {
+            //缓存已过期(已出最终结果)
+            resultSubmitVO = problemResultMapper.getByRunNum2SubmitVO(runNum);
+        }
         return RestResponseVO.createBySuccess(resultSubmitVO);
     }
 
@@ -126,19 +261,33 @@ public class ProblemResultServiceImpl implements ProblemResultService {
         PageHelper.startPage(pageNum, pageSize, true);
 
         List<ProblemResultCompetitionVO> list = problemResultMapper.listProblemResultCompetitionVO2Page(compId, userId);
+        //汇总一般在出结果时已写入,缺失的(未出结果或历史数据)一次分组查询补齐
+        List<Integer> missingIds = new ArrayList<>();
         for (ProblemResultCompetitionVO dataVO : list) {
-            List<TestcaseResult> testcaseResultList = testcaseResultMapper.listByProblemResultId(dataVO.getId());
-            for (TestcaseResult testcaseResult : testcaseResultList) {
-                if (JudgeStatusEnum.ACCEPTED.getStatus().equals(testcaseResult.getStatus())) {
-                    dataVO.setAcCount(dataVO.getAcCount() + 1);
+            if (dataVO.getTestcaseCount() == 0) {
+                missingIds.add(dataVO.getId());
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            Map<Integer, ProblemResultCompetitionVO> countMap = new HashMap<>(missingIds.size() * 2);
+            for (ProblemResultCompetitionVO countVO : testcaseResultMapper.listAcCountByProblemResultIds(missingIds)) {
+                countMap.put(countVO.getId(), countVO);
+            }
+            for (ProblemResultCompetitionVO dataVO : list) {
+                ProblemResultCompetitionVO countVO = countMap.get(dataVO.getId());
+                if (countVO != null) {
+                    dataVO.setAcCount(countVO.getAcCount());
+                    dataVO.setTestcaseCount(countVO.getTestcaseCount());
                 }
             }
-            Integer score = competitionProblemService.getScoreByCompIdProblemId(compId, dataVO.getProblemId()).getData();
+        }
+        Map<Integer, Integer> scoreMap = competitionProblemService.getScoreMapByCompId(compId).getData();
+        for (ProblemResultCompetitionVO dataVO : list) {
+            Integer score = scoreMap.get(dataVO.getProblemId());
             if (score != null) {
-                score = (int) ((dataVO.getAcCount() * 1.0 / testcaseResultList.size()) * score);
+                score = (int) ((dataVO.getAcCount() * 1.0 / dataVO.getTestcaseCount()) * score);
                 dataVO.setScore(dataVO.getScore() + score);
             }
-
         }
 
         PageInfo<ProblemResultCompetitionVO> pageInfo = new PageInfo<>(list);
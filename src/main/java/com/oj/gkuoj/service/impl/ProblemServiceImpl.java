@@ -1,25 +1,27 @@
 package com.oj.gkuoj.service.impl;
 
-import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
-import com.oj.gkuoj.common.CommonConst;
-import com.oj.gkuoj.common.JudgeStatusEnum;
 import com.oj.gkuoj.common.RestResponseEnum;
 import com.oj.gkuoj.dao.ProblemMapper;
-import com.oj.gkuoj.dao.ProblemResultMapper;
 import com.oj.gkuoj.entity.Problem;
 import com.oj.gkuoj.response.ProblemDetailVO;
 import com.oj.gkuoj.response.ProblemVO;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.common.StringConst;
+import com.oj.gkuoj.service.ProblemCatalogService;
+import com.oj.gkuoj.service.ProblemRecommendService;
 import com.oj.gkuoj.service.ProblemService;
+import com.oj.gkuoj.service.ProblemStatementCacheService;
+import com.oj.gkuoj.service.ProblemUserStatusService;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author m969130721@163.com
@@ -32,7 +34,16 @@ public class ProblemServiceImpl implements ProblemService {
     private ProblemMapper problemMapper;
 
     @Autowired
-    private ProblemResultMapper problemResultMapper;
+    private ProblemUserStatusService problemUserStatusService;
+
+    @Autowired
+    private ProblemCatalogService problemCatalogService;
+
+    @Autowired
+    private ProblemRecommendService problemRecommendService;
+
+    @Autowired
+    private ProblemStatementCacheService problemStatementCacheService;
 
     @Override
     public RestResponseVO getById(Integer problemId) {
@@ -49,6 +60,10 @@ public class ProblemServiceImpl implements ProblemService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = problemMapper.deleteByPrimaryKey(id);
+        if (effect > 0) {
+            problemCatalogService.invalidate();
+            problemStatementCacheService.invalidate(id);
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.DEL_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
     }
@@ -59,23 +74,41 @@ public class ProblemServiceImpl implements ProblemService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = problemMapper.insertSelective(problem);
+        if (effect > 0) {
+            problemCatalogService.invalidate();
+            problemStatementCacheService.invalidate(problem.getId());
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.ADD_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.ADD_FAIL);
     }
 
     @Override
+    @Transactional
     public RestResponseVO updateById(Problem problem) {
         if (problem == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
+        boolean limitChanged = false;
+        if (problem.getTime() != null || problem.getMemory() != null) {
+            Problem old = problemMapper.selectByPrimaryKey(problem.getId());
+            limitChanged = old != null && ((problem.getTime() != null && !problem.getTime().equals(old.getTime()))
+                    || (problem.getMemory() != null && !problem.getMemory().equals(old.getMemory())));
+        }
         int effect = problemMapper.updateByPrimaryKeySelective(problem);
+        if (effect > 0) {
+            if (limitChanged) {
+                //限制变了,之前的判题结果不能再被相同代码复用
+                problemMapper.updateLimitUpdateTime(problem.getId());
+            }
+            problemCatalogService.invalidate();
+            problemStatementCacheService.invalidate(problem.getId());
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
     }
 
     @Override
     public RestResponseVO<PageInfo> listProblemVOToPage(Integer userId, Integer sort, String keyword, Integer level, String tagIds, Integer pageNum, Integer pageSize) {
-        PageHelper.startPage(pageNum, pageSize, true);
         List<Integer> tagIdsList = null;
         if (StringUtils.isNoneBlank(tagIds)) {
             tagIdsList = new ArrayList<>();
@@ -84,36 +117,38 @@ public class ProblemServiceImpl implements ProblemService {
             }
         }
 
-        List<ProblemVO> problemList = problemMapper.listAll2VO(sort, keyword, level, tagIdsList);
-        if (userId != null) {
+        RestResponseVO<PageInfo<ProblemVO>> pageResponse = problemCatalogService.listProblemVO2Page(sort, keyword, level,
+                tagIdsList, pageNum, pageSize);
+        if (!pageResponse.isSuccess()) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        PageInfo<ProblemVO> pageInfo = pageResponse.getData();
+        List<ProblemVO> problemList = pageInfo.getList();
+        if (userId != null && !problemList.isEmpty()) {
+            List<Integer> problemIdList = new ArrayList<>(problemList.size());
+            for (ProblemVO problemVO : problemList) {
+                problemIdList.add(problemVO.getId());
+            }
+            Map<Integer, Integer> statusMap = problemUserStatusService.getStatusMap(userId, problemIdList);
             for (ProblemVO problemVO : problemList) {
-                int totalCount = problemResultMapper.countUserIdProblemId(userId, problemVO.getId());
-                if (totalCount > 0) {
-                    int acCount = problemResultMapper.countUserIdProblemIdByStatus(userId, problemVO.getId(), JudgeStatusEnum.ACCEPTED.getStatus());
-                    if (acCount > 0) {
-                        problemVO.setUserStatus(CommonConst.ProblemUserStatus.PASSED);
-                    } else {
-                        problemVO.setUserStatus(CommonConst.ProblemUserStatus.TRYING);
-                    }
-                }
+                problemVO.setUserStatus(statusMap.get(problemVO.getId()));
             }
         }
-        PageInfo<ProblemVO> pageInfo = new PageInfo<>(problemList);
         return RestResponseVO.createBySuccess(pageInfo);
     }
 
     @Override
-    public RestResponseVO listSuggestProblem(Integer problemId, Integer row) {
-        if (problemId == null) {
+    public RestResponseVO<List<ProblemVO>> listSuggestProblem(Integer problemId, Integer row) {
+        if (problemId == null || row == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
-        List<Problem> problemList = problemMapper.listSuggestProblem(problemId, row);
+        List<ProblemVO> problemList = problemRecommendService.listSuggestProblem(problemId, row);
         return RestResponseVO.createBySuccess(problemList);
     }
 
     @Override
     public RestResponseVO<Integer> randomProblemId() {
-        Integer randomProblemId = problemMapper.countRandomProblemId();
+        Integer randomProblemId = problemCatalogService.randomProblemId();
         if (randomProblemId != null) {
             return RestResponseVO.createBySuccess(randomProblemId);
         } else {
@@ -127,7 +162,7 @@ public class ProblemServiceImpl implements ProblemService {
         if (problemId == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
-        ProblemDetailVO problemDetailVO = problemMapper.getDetailVOById(problemId);
+        ProblemDetailVO problemDetailVO = problemStatementCacheService.get(problemId);
         return RestResponseVO.createBySuccess(problemDetailVO);
     }
 }
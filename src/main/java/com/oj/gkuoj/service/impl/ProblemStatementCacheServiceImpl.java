@@ -0,0 +1,157 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.dao.ProblemMapper;
+import com.oj.gkuoj.response.ProblemDetailVO;
+import com.oj.gkuoj.service.ProblemStatementCacheService;
+import com.oj.gkuoj.utils.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 题面保存时加载一次放入本地 LRU 缓存,比赛开始时大量用户同时打开同一题直接走内存
+ * 多实例间按 redis 中的版本号失效:每个条目最多每 check-interval 比对一次版本,版本变化即重新加载;
+ * 提交数等计数随题面一起缓存,条目超过 max-age 后重新加载
+ * 同一题目同时只有一个线程查库,其余线程等待其结果
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午7:35
+ */
+@Service
+public class ProblemStatementCacheServiceImpl implements ProblemStatementCacheService {
+
+    @Autowired
+    private ProblemMapper problemMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${problem.statement-cache.max-size:500}")
+    private Integer maxSize;
+
+    @Value("${problem.statement-cache.check-interval:1000}")
+    private Long checkInterval;
+
+    @Value("${problem.statement-cache.max-age:60000}")
+    private Long maxAge;
+
+    private LruCache<Integer, Statement> statementCache;
+
+    private final Map<Integer, CompletableFuture<Statement>> loadingMap = new ConcurrentHashMap<>();
+
+    private Logger logger = LoggerFactory.getLogger(ProblemStatementCacheServiceImpl.class);
+
+    @PostConstruct
+    public void init() {
+        statementCache = new LruCache<>(maxSize);
+    }
+
+    @Override
+    public ProblemDetailVO get(Integer problemId) {
+        if (problemId == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Statement statement = statementCache.get(problemId);
+        if (statement != null && now - statement.loadTime < maxAge) {
+            if (now - statement.checkTime < checkInterval) {
+                return statement.detailVO;
+            }
+            statement.checkTime = now;
+            Long version = getVersion(problemId);
+            if (version == null || version == statement.version) {
+                return statement.detailVO;
+            }
+        }
+        return load(problemId).detailVO;
+    }
+
+    @Override
+    public void invalidate(Integer problemId) {
+        if (problemId == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForHash().increment(RedisKeyConst.KeyPrefix.PROBLEM_STATEMENT_VERSION,
+                    String.valueOf(problemId), 1);
+        } catch (Exception e) {
+            //其他实例最多在 max-age 后重新加载
+            logger.warn("题面版本号更新失败,problemId:{},{}", problemId, e.getMessage());
+        }
+        statementCache.remove(problemId);
+        load(problemId);
+    }
+
+    private Statement load(Integer problemId) {
+        CompletableFuture<Statement> future = new CompletableFuture<>();
+        CompletableFuture<Statement> loading = loadingMap.putIfAbsent(problemId, future);
+        if (loading != null) {
+            try {
+                return loading.join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        }
+        try {
+            //先取版本再查库,查库期间题目被修改时版本落后,下次比对会重新加载
+            Long version = getVersion(problemId);
+            ProblemDetailVO detailVO = problemMapper.getDetailVOById(problemId);
+            Statement statement = new Statement(detailVO, version == null ? -1 : version);
+            if (detailVO != null) {
+                statementCache.put(problemId, statement);
+            } else {
+                statementCache.remove(problemId);
+            }
+            future.complete(statement);
+            return statement;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingMap.remove(problemId, future);
+        }
+    }
+
+    /**
+     * redis 不可用时返回 null,视为版本未变
+     */
+    private Long getVersion(Integer problemId) {
+        try {
+            Object version = stringRedisTemplate.opsForHash().get(RedisKeyConst.KeyPrefix.PROBLEM_STATEMENT_VERSION,
+                    String.valueOf(problemId));
+            return version == null ? 0L : Long.valueOf(version.toString());
+        } catch (Exception e) {
+            logger.warn("题面版本号读取失败,problemId:{},{}", problemId, e.getMessage());
+            return null;
+        }
+    }
+
+
+    private static class Statement {
+
+        private final ProblemDetailVO detailVO;
+
+        private final long version;
+
+        private final long loadTime;
+
+        private volatile long checkTime;
+
+        Statement(ProblemDetailVO detailVO, long version) {
+            this.detailVO = detailVO;
+            this.version = version;
+            this.loadTime = System.currentTimeMillis();
+            this.checkTime = loadTime;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.CommonConst;
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.dao.ProblemResultMapper;
+import com.oj.gkuoj.response.ProblemVO;
+import com.oj.gkuoj.service.ProblemUserStatusService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个用户两个 bitmap(尝试过、通过),偏移即题目 id,一次 pipeline 取完一页题目的状态
+ * bitmap 不存在时从 problem_result 分组查询一次全量加载,之后随提交和判题结果增量维护
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 上午9:42
+ */
+@Service
+public class ProblemUserStatusServiceImpl implements ProblemUserStatusService {
+
+    /**
+     * 题目 id 从 1 开始,偏移 0 在加载完成时置位,用于区分"已加载但没提交过"和"未加载"
+     */
+    private static final long LOADED_OFFSET = 0L;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ProblemResultMapper problemResultMapper;
+
+    /**
+     * bitmap 过期时间(秒)
+     */
+    @Value("${problem.user-status.ttl:604800}")
+    private long ttl;
+
+    private Logger logger = LoggerFactory.getLogger(ProblemUserStatusServiceImpl.class);
+
+    @Override
+    public void markTried(Integer userId, Integer problemId) {
+        mark(userId, problemId, false);
+    }
+
+    @Override
+    public void markPassed(Integer userId, Integer problemId) {
+        mark(userId, problemId, true);
+    }
+
+    @Override
+    public Map<Integer, Integer> getStatusMap(Integer userId, List<Integer> problemIdList) {
+        if (userId == null || problemIdList == null || problemIdList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        byte[] triedKey = triedKey(userId);
+        byte[] passedKey = passedKey(userId);
+        List<Object> bitList;
+        try {
+            bitList = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.getBit(triedKey, LOADED_OFFSET);
+                for (Integer problemId : problemIdList) {
+                    connection.getBit(triedKey, problemId);
+                    connection.getBit(passedKey, problemId);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("做题状态读取失败,userId:{},{}", userId, e.getMessage());
+            return toStatusMap(problemResultMapper.listProblemUserStatus(userId, problemIdList));
+        }
+        if (!Boolean.TRUE.equals(bitList.get(0))) {
+            return load(userId, problemIdList);
+        }
+        Map<Integer, Integer> statusMap = new HashMap<>(problemIdList.size() * 2);
+        for (int i = 0; i < problemIdList.size(); i++) {
+            if (Boolean.TRUE.equals(bitList.get(i * 2 + 2))) {
+                statusMap.put(problemIdList.get(i), CommonConst.ProblemUserStatus.PASSED);
+            } else if (Boolean.TRUE.equals(bitList.get(i * 2 + 1))) {
+                statusMap.put(problemIdList.get(i), CommonConst.ProblemUserStatus.TRYING);
+            }
+        }
+        return statusMap;
+    }
+
+    /**
+     * 从 mysql 全量加载该用户的做题状态写入 bitmap,返回本次需要的题目状态
+     */
+    private Map<Integer, Integer> load(Integer userId, List<Integer> problemIdList) {
+        List<ProblemVO> statusList = problemResultMapper.listProblemUserStatus(userId, null);
+        byte[] triedKey = triedKey(userId);
+        byte[] passedKey = passedKey(userId);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (ProblemVO status : statusList) {
+                    connection.setBit(triedKey, status.getId(), true);
+                    if (CommonConst.ProblemUserStatus.PASSED.equals(status.getUserStatus())) {
+                        connection.setBit(passedKey, status.getId(), true);
+                    }
+                }
+                connection.setBit(triedKey, LOADED_OFFSET, true);
+                connection.expire(triedKey, ttl);
+                connection.expire(passedKey, ttl);
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("做题状态加载失败,userId:{},{}", userId, e.getMessage());
+        }
+        Map<Integer, Integer> statusMap = toStatusMap(statusList);
+        statusMap.keySet().retainAll(problemIdList);
+        return statusMap;
+    }
+
+    private void mark(Integer userId, Integer problemId, boolean passed) {
+        if (userId == null || problemId == null) {
+            return;
+        }
+        byte[] triedKey = triedKey(userId);
+        byte[] passedKey = passedKey(userId);
+        try {
+            //bitmap 未加载时这里只会写入部分位,偏移 0 未置位,读取时仍会从 mysql 全量加载
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.setBit(triedKey, problemId, true);
+                if (passed) {
+                    connection.setBit(passedKey, problemId, true);
+                }
+                connection.expire(triedKey, ttl);
+                connection.expire(passedKey, ttl);
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("做题状态写入失败,userId:{},problemId:{},{}", userId, problemId, e.getMessage());
+        }
+    }
+
+    private static Map<Integer, Integer> toStatusMap(List<ProblemVO> statusList) {
+        Map<Integer, Integer> statusMap = new HashMap<>(statusList.size() * 2);
+        for (ProblemVO status : statusList) {
+            statusMap.put(status.getId(), status.getUserStatus());
+        }
+        return statusMap;
+    }
+
+    private static byte[] triedKey(Integer userId) {
+        return (RedisKeyConst.KeyPrefix.PROBLEM_USER_TRIED + userId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] passedKey(Integer userId) {
+        return (RedisKeyConst.KeyPrefix.PROBLEM_USER_PASSED + userId).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.response.ResponseSizeVO;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.service.ResponseSizeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 uri 累计响应体字节数,由 ResponseSizeFilter 记录,后台可查看,定时打印到日志
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午8:20
+ */
+@Service
+public class ResponseSizeServiceImpl implements ResponseSizeService {
+
+    private final Map<String, Stat> statMap = new ConcurrentHashMap<>();
+
+    private Logger logger = LoggerFactory.getLogger(ResponseSizeServiceImpl.class);
+
+    @Override
+    public void record(String uri, long bytes) {
+        Stat stat = statMap.computeIfAbsent(uri, key -> new Stat());
+        stat.count.increment();
+        stat.totalBytes.add(bytes);
+        stat.maxBytes.accumulateAndGet(bytes, Math::max);
+    }
+
+    @Override
+    public RestResponseVO<List<ResponseSizeVO>> listResponseSize() {
+        List<ResponseSizeVO> responseSizeList = new ArrayList<>(statMap.size());
+        statMap.forEach((uri, stat) -> {
+            long count = stat.count.sum();
+            ResponseSizeVO responseSizeVO = new ResponseSizeVO();
+            responseSizeVO.setUri(uri);
+            responseSizeVO.setCount(count);
+            responseSizeVO.setAvgBytes(count == 0 ? 0 : stat.totalBytes.sum() / count);
+            responseSizeVO.setMaxBytes(stat.maxBytes.get());
+            responseSizeList.add(responseSizeVO);
+        });
+        responseSizeList.sort(Comparator.comparing(ResponseSizeVO::getUri));
+        return RestResponseVO.createBySuccess(responseSizeList);
+    }
+
+    @Override
+    public RestResponseVO reset() {
+        statMap.clear();
+        return RestResponseVO.createBySuccess();
+    }
+
+    @Scheduled(fixedDelayString = "${project.metrics.response-size.log-interval:600000}")
+    public void log() {
+        for (ResponseSizeVO responseSizeVO : listResponseSize().getData()) {
+            logger.info("响应体大小 uri:{},次数:{},平均:{}B,最大:{}B", responseSizeVO.getUri(),
+                    responseSizeVO.getCount(), responseSizeVO.getAvgBytes(), responseSizeVO.getMaxBytes());
+        }
+    }
+
+
+    private static class Stat {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalBytes = new LongAdder();
+
+        private final AtomicLong maxBytes = new AtomicLong();
+    }
+}
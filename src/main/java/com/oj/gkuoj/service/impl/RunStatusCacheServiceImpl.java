@@ -0,0 +1,146 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.JudgeStatusEnum;
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.response.ProblemResultSubmitVO;
+import com.oj.gkuoj.service.RunStatusCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 判题中间状态只写 redis,轮询优先读这里,减轻 problem_result 的读压力
+ * 最终结果也写入并保留一段时间,过期后再回落到 mysql
+ * 上报消息并发消费、不保证顺序,写入由脚本判断:已有最终结果时忽略之后到达的进度,入队状态只在没有任何状态时写入
+ *
+ * @author m969130721@163.com
+ * @date 19-3-24 上午10:35
+ */
+@Service
+public class RunStatusCacheServiceImpl implements RunStatusCacheService {
+
+    private static final DefaultRedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        PUT_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/run_status_put.lua")));
+        PUT_SCRIPT.setResultType(Long.class);
+    }
+
+    /**
+     * 写入方式,见 lua/run_status_put.lua
+     */
+    private static final String MODE_INIT = "init";
+    private static final String MODE_PROGRESS = "progress";
+    private static final String MODE_FINAL = "final";
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_PROBLEM_ID = "problemId";
+    private static final String FIELD_COMP_ID = "compId";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_TIME = "time";
+    private static final String FIELD_MEMORY = "memory";
+    private static final String FIELD_TESTCASE_NUM = "testcaseNum";
+    private static final String FIELD_TESTCASE_STATUS = "testcaseStatus";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 判题中状态过期时间(秒)
+     */
+    @Value("${judge.status-cache.ttl:1800}")
+    private long ttl;
+
+    /**
+     * 最终结果过期时间(秒)
+     */
+    @Value("${judge.status-cache.final-ttl:600}")
+    private long finalTtl;
+
+    private Logger logger = LoggerFactory.getLogger(RunStatusCacheServiceImpl.class);
+
+    @Override
+    public void put(ProblemResultSubmitVO progress) {
+        List<String> args = new ArrayList<>(20);
+        String mode;
+        if (progress.getTestcaseNum() == null && JudgeStatusEnum.isFinal(progress.getStatus())) {
+            mode = MODE_FINAL;
+        } else if (JudgeStatusEnum.QUEUING.getStatus().equals(progress.getStatus())) {
+            mode = MODE_INIT;
+        } else {
+            mode = MODE_PROGRESS;
+        }
+        args.add(mode);
+        args.add(String.valueOf(MODE_FINAL.equals(mode) ? finalTtl : ttl));
+        addField(args, FIELD_ID, progress.getId());
+        addField(args, FIELD_USER_ID, progress.getUserId());
+        addField(args, FIELD_PROBLEM_ID, progress.getProblemId());
+        addField(args, FIELD_COMP_ID, progress.getCompId());
+        addField(args, FIELD_STATUS, progress.getStatus());
+        addField(args, FIELD_TIME, progress.getTime());
+        addField(args, FIELD_MEMORY, progress.getMemory());
+        addField(args, FIELD_TESTCASE_NUM, progress.getTestcaseNum());
+        addField(args, FIELD_TESTCASE_STATUS, progress.getTestcaseStatus());
+        try {
+            stringRedisTemplate.execute(PUT_SCRIPT,
+                    Collections.singletonList(RedisKeyConst.KeyPrefix.RUN_STATUS + progress.getRunNum()), args.toArray());
+        } catch (Exception e) {
+            logger.warn("测评状态缓存写入失败,runNum:{},{}", progress.getRunNum(), e.getMessage());
+        }
+    }
+
+    @Override
+    public ProblemResultSubmitVO get(String runNum) {
+        Map<Object, Object> hash;
+        try {
+            hash = stringRedisTemplate.opsForHash().entries(RedisKeyConst.KeyPrefix.RUN_STATUS + runNum);
+        } catch (Exception e) {
+            logger.warn("测评状态缓存读取失败,runNum:{},{}", runNum, e.getMessage());
+            return null;
+        }
+        if (hash == null || hash.isEmpty() || hash.get(FIELD_STATUS) == null) {
+            return null;
+        }
+        ProblemResultSubmitVO submitVO = new ProblemResultSubmitVO();
+        submitVO.setRunNum(runNum);
+        submitVO.setId(getInteger(hash, FIELD_ID));
+        submitVO.setUserId(getInteger(hash, FIELD_USER_ID));
+        submitVO.setProblemId(getInteger(hash, FIELD_PROBLEM_ID));
+        submitVO.setCompId(getInteger(hash, FIELD_COMP_ID));
+        submitVO.setStatus(getInteger(hash, FIELD_STATUS));
+        submitVO.setTime(getLong(hash, FIELD_TIME));
+        submitVO.setMemory(getLong(hash, FIELD_MEMORY));
+        submitVO.setTestcaseNum(getInteger(hash, FIELD_TESTCASE_NUM));
+        submitVO.setTestcaseStatus(getInteger(hash, FIELD_TESTCASE_STATUS));
+        return submitVO;
+    }
+
+    private static void addField(List<String> args, String field, Object value) {
+        if (value != null) {
+            args.add(field);
+            args.add(value.toString());
+        }
+    }
+
+    private static Integer getInteger(Map<Object, Object> hash, String field) {
+        Object value = hash.get(field);
+        return value == null ? null : Integer.valueOf(value.toString());
+    }
+
+    private static Long getLong(Map<Object, Object> hash, String field) {
+        Object value = hash.get(field);
+        return value == null ? null : Long.valueOf(value.toString());
+    }
+}
@@ -0,0 +1,272 @@
+package com.oj.gkuoj.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageInfo;
+import com.oj.gkuoj.common.CommonConst;
+import com.oj.gkuoj.common.JudgeStatusEnum;
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.common.RestResponseEnum;
+import com.oj.gkuoj.dao.CompetitionMapper;
+import com.oj.gkuoj.dao.ProblemResultMapper;
+import com.oj.gkuoj.dao.UserMapper;
+import com.oj.gkuoj.entity.Competition;
+import com.oj.gkuoj.response.ProblemResultCompetitionVO;
+import com.oj.gkuoj.response.RankVO;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.response.ScoreboardProblemVO;
+import com.oj.gkuoj.response.ScoreboardVO;
+import com.oj.gkuoj.service.CompetitionProblemService;
+import com.oj.gkuoj.service.ScoreboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 比赛榜单:zset 保存排名分,每个用户一个 hash 保存各题成绩
+ * 判题出最终结果时由 lua 脚本原子更新,查询不再回表计算
+ *
+ * @author m969130721@163.com
+ * @date 19-3-26 下午3:52
+ */
+@Service
+public class ScoreboardServiceImpl implements ScoreboardService {
+
+    private static final DefaultRedisScript<Long> SCOREBOARD_UPDATE_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        SCOREBOARD_UPDATE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/scoreboard_update.lua")));
+        SCOREBOARD_UPDATE_SCRIPT.setResultType(Long.class);
+    }
+
+    private static final String USER_SUFFIX = "_U";
+    private static final String FIRST_SUFFIX = "_FIRST";
+    private static final String DONE_SUFFIX = "_DONE";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ProblemResultMapper problemResultMapper;
+
+    @Autowired
+    private CompetitionMapper competitionMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private CompetitionProblemService competitionProblemService;
+
+    /**
+     * ACM 每次错误提交罚时(秒)
+     */
+    @Value("${competition.scoreboard.penalty:1200}")
+    private long penalty;
+
+    /**
+     * 榜单保留时间(秒)
+     */
+    @Value("${competition.scoreboard.ttl:2592000}")
+    private long ttl;
+
+    private Logger logger = LoggerFactory.getLogger(ScoreboardServiceImpl.class);
+
+    @Override
+    public void update(String runNum) {
+        ProblemResultCompetitionVO result = problemResultMapper.getScoreboardVOByRunNum(runNum);
+        if (result == null || result.getCompId() == null) {
+            return;
+        }
+        Competition competition = competitionMapper.selectByPrimaryKey(result.getCompId());
+        if (competition == null) {
+            return;
+        }
+        try {
+            apply(competition, result);
+        } catch (Exception e) {
+            logger.warn("比赛榜单更新失败,runNum:{},{}", runNum, e.getMessage());
+        }
+    }
+
+    @Override
+    public RestResponseVO<PageInfo<ScoreboardVO>> listScoreboard2Page(Integer compId, Integer pageNum, Integer pageSize) {
+        if (compId == null || pageNum == null || pageSize == null || pageNum < 1 || pageSize < 1) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        String rankKey = rankKey(compId);
+        long start = (long) (pageNum - 1) * pageSize;
+        Long total = stringRedisTemplate.opsForZSet().zCard(rankKey);
+        Set<ZSetOperations.TypedTuple<String>> tupleSet =
+                stringRedisTemplate.opsForZSet().reverseRangeWithScores(rankKey, start, start + pageSize - 1);
+        Page<ScoreboardVO> page = new Page<>(pageNum, pageSize);
+        page.setTotal(total == null ? 0 : total);
+        if (tupleSet == null || tupleSet.isEmpty()) {
+            return RestResponseVO.createBySuccess(new PageInfo<>(page));
+        }
+        List<Integer> userIdList = new ArrayList<>(tupleSet.size());
+        List<Integer> rankList = new ArrayList<>(tupleSet.size());
+        Double lastScore = null;
+        int rank = 0;
+        int position = (int) start;
+        for (ZSetOperations.TypedTuple<String> tuple : tupleSet) {
+            position++;
+            if (lastScore == null) {
+                //并列名次:排名分严格更高的人数 + 1
+                rank = countHigher(rankKey, tuple.getScore()) + 1;
+            } else if (!lastScore.equals(tuple.getScore())) {
+                rank = position;
+            }
+            lastScore = tuple.getScore();
+            userIdList.add(Integer.valueOf(tuple.getValue()));
+            rankList.add(rank);
+        }
+        page.addAll(buildScoreboardVOList(compId, userIdList, rankList));
+        return RestResponseVO.createBySuccess(new PageInfo<>(page));
+    }
+
+    @Override
+    public RestResponseVO<ScoreboardVO> getByUserId(Integer compId, Integer userId) {
+        if (compId == null || userId == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        Double score = stringRedisTemplate.opsForZSet().score(rankKey(compId), userId.toString());
+        if (score == null) {
+            return RestResponseVO.createBySuccess();
+        }
+        int rank = countHigher(rankKey(compId), score) + 1;
+        List<ScoreboardVO> scoreboardVOList = buildScoreboardVOList(compId,
+                Collections.singletonList(userId), Collections.singletonList(rank));
+        return RestResponseVO.createBySuccess(scoreboardVOList.get(0));
+    }
+
+    @Override
+    public RestResponseVO rebuild(Integer compId) {
+        if (compId == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        Competition competition = competitionMapper.selectByPrimaryKey(compId);
+        if (competition == null) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.COMPETITION_NOT_FOUND_ERROR);
+        }
+        String rankKey = rankKey(compId);
+        Set<String> userIdSet = stringRedisTemplate.opsForZSet().range(rankKey, 0, -1);
+        List<String> keyList = new ArrayList<>();
+        keyList.add(rankKey);
+        keyList.add(rankKey + FIRST_SUFFIX);
+        keyList.add(rankKey + DONE_SUFFIX);
+        if (userIdSet != null) {
+            for (String userId : userIdSet) {
+                keyList.add(rankKey + USER_SUFFIX + userId);
+            }
+        }
+        stringRedisTemplate.delete(keyList);
+        List<ProblemResultCompetitionVO> resultList = problemResultMapper.listScoreboardVOByCompId(compId);
+        for (ProblemResultCompetitionVO result : resultList) {
+            apply(competition, result);
+        }
+        return RestResponseVO.createBySuccess();
+    }
+
+    private void apply(Competition competition, ProblemResultCompetitionVO result) {
+        if (!JudgeStatusEnum.isFinal(result.getStatus())) {
+            return;
+        }
+        String rankKey = rankKey(competition.getId());
+        Integer rule = competition.getRule() == null ? CommonConst.CompetitionRule.OI : competition.getRule();
+        boolean accepted = JudgeStatusEnum.ACCEPTED.getStatus().equals(result.getStatus());
+        //编译错误不计罚时
+        boolean attempt = !JudgeStatusEnum.COMPILE_ERROR.getStatus().equals(result.getStatus());
+        long elapsed = Math.max(0, (result.getCreateTime().getTime() - competition.getStartTime().getTime()) / 1000);
+        List<String> keys = Arrays.asList(rankKey, rankKey + USER_SUFFIX + result.getUserId(),
+                rankKey + FIRST_SUFFIX, rankKey + DONE_SUFFIX);
+        stringRedisTemplate.execute(SCOREBOARD_UPDATE_SCRIPT, keys,
+                rule.toString(), result.getUserId().toString(), result.getProblemId().toString(),
+                accepted ? "1" : "0", String.valueOf(result.getScore() == null ? 0 : result.getScore()),
+                String.valueOf(elapsed), String.valueOf(penalty), attempt ? "1" : "0",
+                result.getId().toString(), String.valueOf(ttl));
+    }
+
+    private int countHigher(String rankKey, Double score) {
+        //排名分均为整数,严格大于即 >= score + 1
+        Long count = stringRedisTemplate.opsForZSet().count(rankKey, score + 1, Double.POSITIVE_INFINITY);
+        return count == null ? 0 : count.intValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ScoreboardVO> buildScoreboardVOList(Integer compId, List<Integer> userIdList, List<Integer> rankList) {
+        String rankKey = rankKey(compId);
+        List<Object> hashList = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Integer userId : userIdList) {
+                stringConnection.hGetAll(rankKey + USER_SUFFIX + userId);
+            }
+            stringConnection.hGetAll(rankKey + FIRST_SUFFIX);
+            return null;
+        });
+        Map<String, String> firstMap = (Map<String, String>) hashList.get(userIdList.size());
+        Set<Integer> problemIdSet = new TreeSet<>();
+        Map<Integer, Integer> scoreMap = competitionProblemService.getScoreMapByCompId(compId).getData();
+        if (scoreMap != null) {
+            problemIdSet.addAll(scoreMap.keySet());
+        }
+        Map<Integer, RankVO> userMap = new HashMap<>(userIdList.size() * 2);
+        for (RankVO rankVO : userMapper.listRankVOByIds(userIdList)) {
+            userMap.put(rankVO.getId(), rankVO);
+        }
+
+        List<ScoreboardVO> scoreboardVOList = new ArrayList<>(userIdList.size());
+        for (int i = 0; i < userIdList.size(); i++) {
+            Integer userId = userIdList.get(i);
+            Map<String, String> hash = (Map<String, String>) hashList.get(i);
+            ScoreboardVO scoreboardVO = new ScoreboardVO();
+            scoreboardVO.setRank(rankList.get(i));
+            scoreboardVO.setUserId(userId);
+            RankVO user = userMap.get(userId);
+            if (user != null) {
+                scoreboardVO.setName(user.getName());
+                scoreboardVO.setSchool(user.getSchool());
+                scoreboardVO.setAvatar(user.getAvatar());
+            }
+            scoreboardVO.setScore(Integer.valueOf(hash.getOrDefault("score", "0")));
+            scoreboardVO.setSolved(Integer.valueOf(hash.getOrDefault("solved", "0")));
+            scoreboardVO.setPenalty(Long.valueOf(hash.getOrDefault("penalty", "0")));
+            for (Integer problemId : problemIdSet) {
+                ScoreboardProblemVO problemVO = new ScoreboardProblemVO();
+                problemVO.setProblemId(problemId);
+                String score = hash.get(problemId + ":score");
+                String acTime = hash.get(problemId + ":ac");
+                String wrong = hash.get(problemId + ":wrong");
+                String first = firstMap.get(problemId.toString());
+                problemVO.setScore(score == null ? null : Integer.valueOf(score));
+                problemVO.setAcTime(acTime == null ? null : Long.valueOf(acTime));
+                problemVO.setWrongCount(wrong == null ? 0 : Integer.valueOf(wrong));
+                problemVO.setFirstAc(first != null && first.endsWith(":" + userId));
+                scoreboardVO.getProblemList().add(problemVO);
+            }
+            scoreboardVOList.add(scoreboardVO);
+        }
+        return scoreboardVOList;
+    }
+
+    private static String rankKey(Integer compId) {
+        return RedisKeyConst.KeyPrefix.SCOREBOARD + compId;
+    }
+}
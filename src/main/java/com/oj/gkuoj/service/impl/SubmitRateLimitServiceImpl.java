@@ -0,0 +1,153 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.service.SubmitRateLimitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * redis lua 令牌桶,用户、比赛、全局三个桶一次原子判断
+ * redis 不可用时退化为本机令牌桶
+ *
+ * @author m969130721@163.com
+ * @date 19-3-25 下午8:25
+ */
+@Service
+public class SubmitRateLimitServiceImpl implements SubmitRateLimitService {
+
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        TOKEN_BUCKET_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/token_bucket.lua")));
+        TOKEN_BUCKET_SCRIPT.setResultType(Long.class);
+    }
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${judge.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.rate-limit.user.capacity:5}")
+    private int userCapacity;
+
+    @Value("${judge.rate-limit.user.rate:0.2}")
+    private double userRate;
+
+    @Value("${judge.rate-limit.competition.capacity:200}")
+    private int competitionCapacity;
+
+    @Value("${judge.rate-limit.competition.rate:20}")
+    private double competitionRate;
+
+    @Value("${judge.rate-limit.global.capacity:500}")
+    private int globalCapacity;
+
+    @Value("${judge.rate-limit.global.rate:50}")
+    private double globalRate;
+
+    private final Map<String, LocalTokenBucket> localBucketMap = new ConcurrentHashMap<>();
+
+    private Logger logger = LoggerFactory.getLogger(SubmitRateLimitServiceImpl.class);
+
+    @Override
+    public boolean tryAcquire(Integer userId, Integer compId) {
+        if (!enabled) {
+            return true;
+        }
+        List<String> keys = new ArrayList<>(3);
+        List<String> args = new ArrayList<>(7);
+        long now = System.currentTimeMillis();
+        args.add(String.valueOf(now));
+        keys.add(RedisKeyConst.KeyPrefix.SUBMIT_LIMIT_USER + userId);
+        args.add(String.valueOf(userCapacity));
+        args.add(String.valueOf(userRate));
+        if (compId != null) {
+            keys.add(RedisKeyConst.KeyPrefix.SUBMIT_LIMIT_COMPETITION + compId);
+            args.add(String.valueOf(competitionCapacity));
+            args.add(String.valueOf(competitionRate));
+        }
+        keys.add(RedisKeyConst.KeyPrefix.SUBMIT_LIMIT_GLOBAL);
+        args.add(String.valueOf(globalCapacity));
+        args.add(String.valueOf(globalRate));
+        try {
+            Long allowed = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, args.toArray());
+            return allowed != null && allowed == 1L;
+        } catch (Exception e) {
+            logger.warn("redis 限流不可用,使用本机限流,{}", e.getMessage());
+            return tryAcquireLocal(keys, args, now);
+        }
+    }
+
+    /**
+     * 与 lua 脚本相同的语义:全部有令牌才一起扣
+     */
+    private boolean tryAcquireLocal(List<String> keys, List<String> args, long now) {
+        List<LocalTokenBucket> bucketList = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            int capacity = Integer.parseInt(args.get(i * 2 + 1));
+            double rate = Double.parseDouble(args.get(i * 2 + 2));
+            bucketList.add(localBucketMap.computeIfAbsent(keys.get(i), key -> new LocalTokenBucket(capacity, rate, now)));
+        }
+        synchronized (localBucketMap) {
+            for (LocalTokenBucket bucket : bucketList) {
+                if (bucket.refill(now) < 1) {
+                    return false;
+                }
+            }
+            for (LocalTokenBucket bucket : bucketList) {
+                bucket.tokens -= 1;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 清理已补满的本机令牌桶
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void evictLocalBucket() {
+        long now = System.currentTimeMillis();
+        synchronized (localBucketMap) {
+            localBucketMap.values().removeIf(bucket -> bucket.refill(now) >= bucket.capacity);
+        }
+    }
+
+
+    private static class LocalTokenBucket {
+
+        private final int capacity;
+
+        private final double rate;
+
+        private double tokens;
+
+        private long timestamp;
+
+        LocalTokenBucket(int capacity, double rate, long now) {
+            this.capacity = capacity;
+            this.rate = rate;
+            this.tokens = capacity;
+            this.timestamp = now;
+        }
+
+        double refill(long now) {
+            tokens = Math.min(capacity, tokens + Math.max(0, now - timestamp) * rate / 1000);
+            timestamp = Math.max(timestamp, now);
+            return tokens;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import com.oj.gkuoj.entity.User;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.common.StringConst;
 import com.oj.gkuoj.response.TagVO;
+import com.oj.gkuoj.service.ProblemCatalogService;
 import com.oj.gkuoj.service.TagService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -24,6 +25,9 @@ public class TagImpl implements TagService {
     @Autowired
     private TagMapper tagMapper;
 
+    @Autowired
+    private ProblemCatalogService problemCatalogService;
+
     @Override
     public RestResponseVO<List<TagVO>> listParentVOAll() {
         List<TagVO> problemCategoryList = tagMapper.listParentVOAll();
@@ -36,6 +40,10 @@ public class TagImpl implements TagService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = tagMapper.insertSelective(tag);
+        if (effect > 0) {
+            //题目列表展示标签名
+            problemCatalogService.invalidate();
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.ADD_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.ADD_FAIL);
     }
@@ -46,6 +54,10 @@ public class TagImpl implements TagService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = tagMapper.deleteByPrimaryKey(id);
+        if (effect > 0) {
+            //题目列表展示标签名
+            problemCatalogService.invalidate();
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.DEL_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
     }
@@ -56,6 +68,10 @@ public class TagImpl implements TagService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = tagMapper.updateByPrimaryKeySelective(tag);
+        if (effect > 0) {
+            //题目列表展示标签名
+            problemCatalogService.invalidate();
+        }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
     }
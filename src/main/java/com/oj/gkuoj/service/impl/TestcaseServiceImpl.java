@@ -8,9 +8,11 @@ import com.oj.gkuoj.response.TagVO;
 import com.oj.gkuoj.service.TestcaseService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -21,6 +23,8 @@ import java.util.List;
 @Service
 public class TestcaseServiceImpl implements TestcaseService {
 
+    @Value("${file.server.testcase.dir}")
+    private String fileServerTestcaseDir;
 
     /**
      * todo 超链接
@@ -35,6 +39,26 @@ public class TestcaseServiceImpl implements TestcaseService {
         return null;
     }
 
+    @Override
+    public long getLastModified(Integer problemId) {
+        File problemDir = new File(fileServerTestcaseDir, String.valueOf(problemId));
+        long lastModified = problemDir.lastModified();
+        for (String subDir : new String[]{"input", "output"}) {
+            File dir = new File(problemDir, subDir);
+            File[] files = dir.listFiles();
+            if (files == null) {
+                //目录缺失或不可读时无法判断是否改过,按刚修改处理
+                return Long.MAX_VALUE;
+            }
+            //删除、重命名测试用例只改变所在目录的修改时间
+            lastModified = Math.max(lastModified, dir.lastModified());
+            for (File file : files) {
+                lastModified = Math.max(lastModified, file.lastModified());
+            }
+        }
+        return lastModified;
+    }
+
 
 
 }
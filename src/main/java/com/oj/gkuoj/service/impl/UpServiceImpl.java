@@ -1,33 +1,102 @@
 package com.oj.gkuoj.service.impl;
 
+import com.oj.gkuoj.common.CommonConst;
+import com.oj.gkuoj.common.RedisKeyConst;
 import com.oj.gkuoj.common.RestResponseEnum;
 import com.oj.gkuoj.response.RestResponseVO;
 import com.oj.gkuoj.common.StringConst;
+import com.oj.gkuoj.dao.BlogMapper;
 import com.oj.gkuoj.dao.UpMapper;
 import com.oj.gkuoj.entity.Up;
 import com.oj.gkuoj.response.UpVO;
+import com.oj.gkuoj.service.BlogHotService;
 import com.oj.gkuoj.service.UpService;
+import com.oj.gkuoj.utils.UUIDUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
+ * 点赞状态以 redis 集合为准(每个帖子/评论一个点赞用户集合),切换和计数由一次脚本调用原子完成
+ * 集合不存在时从 mysql 加载;变更记入待写回 hash,后台定时批量写回 up 表,失败保留下次重试
+ * 写回过的对象定时与 mysql 对账,点赞数不一致时以 mysql 为准重建集合,该对象还有未写回的点赞时跳过;
+ * 对账读取 mysql 前记下对象版本号,覆盖时由脚本比对,期间有点赞切换则放弃覆盖
+ * redis 不可用时读取点赞数和状态退回 mysql(可能落后一个写回间隔),点赞操作仍然失败
+ *
  * @author m969130721@163.com
  * @date 18-12-23 下午4:59
  */
 @Service
 public class UpServiceImpl implements UpService {
 
+    private static final DefaultRedisScript<List> TOGGLE_SCRIPT = new DefaultRedisScript<>();
+
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>();
+
+    private static final DefaultRedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>();
+
+    private static final DefaultRedisScript<Long> FINISH_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        TOGGLE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/up_toggle.lua")));
+        TOGGLE_SCRIPT.setResultType(List.class);
+        LOAD_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/up_load.lua")));
+        LOAD_SCRIPT.setResultType(Long.class);
+        TAKE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/pending_take.lua")));
+        TAKE_SCRIPT.setResultType(List.class);
+        FINISH_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/pending_finish.lua")));
+        FINISH_SCRIPT.setResultType(Long.class);
+    }
+
     @Autowired
     private UpMapper upMapper;
 
+    @Autowired
+    private BlogMapper blogMapper;
+
+    @Autowired
+    private BlogHotService blogHotService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${up.set-ttl:604800}")
+    private Long setTtl;
+
+    @Value("${up.batch-size:500}")
+    private Integer batchSize;
 
-    private static final Integer TYPE_BLOG = 0;
+    @Value("${up.lock-millis:60000}")
+    private Long lockMillis;
 
-    private static final Integer TYPE_BLOG_COMMENT = 1;
+    @Value("${up.reconcile-batch-size:200}")
+    private Integer reconcileBatchSize;
 
-    private static final Boolean LIKED = true;
+    private final String lockOwner = UUIDUtil.createByAPI36();
 
-    private static final Boolean NOT_LIKE = false;
+    private Logger logger = LoggerFactory.getLogger(UpServiceImpl.class);
 
 
     @Override
@@ -65,32 +134,7 @@ public class UpServiceImpl implements UpService {
         if (blogId == null || userId == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
-        int count = upMapper.countBlogById(blogId);
-        boolean status;
-        Up up = upMapper.getByBlogIdUserId(blogId, userId);
-        int effect = 0;
-        if (up != null) {
-            if (up.getStatus().equals(LIKED)) {
-                count--;
-            } else {
-                count++;
-            }
-            up.setStatus(!up.getStatus());
-            status = up.getStatus();
-            effect = upMapper.updateByPrimaryKeySelective(up);
-        } else {
-            count++;
-            up = new Up();
-            up.setType(TYPE_BLOG);
-            up.setTypeId(blogId);
-            up.setUserId(userId);
-            up.setStatus(LIKED);
-            status = up.getStatus();
-            effect = upMapper.insertSelective(up);
-        }
-        UpVO upVO = new UpVO(status, count);
-        return effect > 0 ? RestResponseVO.createBySuccess(upVO)
-                : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
+        return RestResponseVO.createBySuccess(toggle(CommonConst.UpType.BLOG, blogId, userId));
     }
 
 
@@ -99,31 +143,219 @@ public class UpServiceImpl implements UpService {
         if (blogCommentId == null || userId == null) {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
-        int count = upMapper.countBlogCommentById(blogCommentId);
-        boolean status;
-        Up up = upMapper.getByBlogCommentIdUserId(blogCommentId, userId);
-        int effect = 0;
-        if (up != null) {
-            if (up.getStatus().equals(LIKED)) {
-                count--;
+        return RestResponseVO.createBySuccess(toggle(CommonConst.UpType.BLOG_COMMENT, blogCommentId, userId));
+    }
+
+    @Override
+    public UpVO getUpVO(Integer type, Integer typeId, Integer userId) {
+        String key = upKey(type, typeId);
+        try {
+            for (int i = 0; i < 2; i++) {
+                List<Object> resultList = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                    stringRedisConnection.exists(key);
+                    stringRedisConnection.sCard(key);
+                    stringRedisConnection.sIsMember(key, String.valueOf(userId));
+                    return null;
+                });
+                if (Boolean.TRUE.equals(resultList.get(0))) {
+                    return new UpVO(userId != null && Boolean.TRUE.equals(resultList.get(2)),
+                            ((Long) resultList.get(1)).intValue() - 1);
+                }
+                load(type, typeId, false, 0L);
+            }
+            logger.warn("点赞集合加载失败,从 mysql 读取,type:{},typeId:{}", type, typeId);
+        } catch (Exception e) {
+            logger.warn("点赞集合读取失败,从 mysql 读取,type:{},typeId:{},{}", type, typeId, e.getMessage());
+        }
+        boolean status = userId != null
+                && !upMapper.listUpTypeIdByUserId(type, Collections.singletonList(typeId), userId).isEmpty();
+        return new UpVO(status, upMapper.countByTypeId(type, typeId));
+    }
+
+    @Override
+    public Map<Integer, Boolean> getUpStatusMap(Integer type, List<Integer> typeIdList, Integer userId) {
+        Map<Integer, Boolean> statusMap = new HashMap<>();
+        if (userId == null || typeIdList == null || typeIdList.isEmpty()) {
+            return statusMap;
+        }
+        List<Object> resultList;
+        try {
+            resultList = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringRedisConnection = (StringRedisConnection) connection;
+                for (Integer typeId : typeIdList) {
+                    stringRedisConnection.exists(upKey(type, typeId));
+                    stringRedisConnection.sIsMember(upKey(type, typeId), String.valueOf(userId));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("点赞状态读取失败,从 mysql 读取,type:{},{}", type, e.getMessage());
+            resultList = null;
+        }
+        //集合未加载的从 mysql 查,未加载说明近期没有人点赞,mysql 已是最新
+        List<Integer> missList = new ArrayList<>();
+        for (int i = 0; i < typeIdList.size(); i++) {
+            if (resultList != null && Boolean.TRUE.equals(resultList.get(i * 2))) {
+                statusMap.put(typeIdList.get(i), Boolean.TRUE.equals(resultList.get(i * 2 + 1)));
             } else {
-                count++;
+                missList.add(typeIdList.get(i));
             }
-            up.setStatus(!up.getStatus());
-            status = up.getStatus();
-            effect = upMapper.updateByPrimaryKeySelective(up);
-        } else {
-            count++;
-            up = new Up();
-            up.setType(TYPE_BLOG_COMMENT);
-            up.setTypeId(blogCommentId);
-            up.setUserId(userId);
-            up.setStatus(LIKED);
-            status = up.getStatus();
-            effect = upMapper.insertSelective(up);
-        }
-        UpVO upVO = new UpVO(status, count);
-        return effect > 0 ? RestResponseVO.createBySuccess(upVO)
-                : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
+        }
+        if (!missList.isEmpty()) {
+            for (Integer typeId : missList) {
+                statusMap.put(typeId, false);
+            }
+            for (Integer typeId : upMapper.listUpTypeIdByUserId(type, missList, userId)) {
+                statusMap.put(typeId, true);
+            }
+        }
+        return statusMap;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${up.flush-interval:5000}")
+    public void flush() {
+        List<?> entries = stringRedisTemplate.execute(TAKE_SCRIPT,
+                Arrays.asList(RedisKeyConst.KeyPrefix.UP_PENDING, RedisKeyConst.KeyPrefix.UP_FLUSHING,
+                        RedisKeyConst.KeyPrefix.UP_FLUSH_LOCK),
+                lockOwner, String.valueOf(lockMillis));
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        boolean success = false;
+        try {
+            //field 为 type:typeId:userId,value 为点赞状态
+            List<Up> upList = new ArrayList<>(entries.size() / 2);
+            Set<String> targetSet = new LinkedHashSet<>();
+            Set<Integer> blogIdSet = new LinkedHashSet<>();
+            for (int i = 0; i + 1 < entries.size(); i += 2) {
+                String[] parts = entries.get(i).toString().split(":");
+                Up up = new Up();
+                up.setType(Integer.valueOf(parts[0]));
+                up.setTypeId(Integer.valueOf(parts[1]));
+                up.setUserId(Integer.valueOf(parts[2]));
+                up.setStatus("1".equals(entries.get(i + 1).toString()));
+                upList.add(up);
+                targetSet.add(parts[0] + "_" + parts[1]);
+                if (CommonConst.UpType.BLOG.equals(up.getType())) {
+                    blogIdSet.add(up.getTypeId());
+                }
+            }
+            //同一 (type, type_id, user_id) 重复写入结果相同,失败后整批重试不会出错
+            for (int from = 0; from < upList.size(); from += batchSize) {
+                upMapper.upsertStatusBatch(upList.subList(from, Math.min(from + batchSize, upList.size())));
+            }
+            //帖子点赞数冗余在 blog 表,按 up 表重算,重复执行结果不变
+            List<Integer> blogIdList = new ArrayList<>(blogIdSet);
+            for (int from = 0; from < blogIdList.size(); from += batchSize) {
+                blogMapper.updateUpCount(blogIdList.subList(from, Math.min(from + batchSize, blogIdList.size())));
+            }
+            stringRedisTemplate.opsForSet().add(RedisKeyConst.KeyPrefix.UP_RECONCILE, targetSet.toArray(new String[0]));
+            success = true;
+            logger.debug("点赞写回完成,记录数:{}", upList.size());
+        } catch (Exception e) {
+            logger.error("点赞写回失败,下次重试", e);
+        } finally {
+            stringRedisTemplate.execute(FINISH_SCRIPT,
+                    Arrays.asList(RedisKeyConst.KeyPrefix.UP_FLUSHING, RedisKeyConst.KeyPrefix.UP_FLUSH_LOCK),
+                    lockOwner, success ? "1" : "0");
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${up.reconcile-interval:600000}", initialDelayString = "${up.reconcile-interval:600000}")
+    public void reconcile() {
+        List<String> targetList = stringRedisTemplate.opsForSet().pop(RedisKeyConst.KeyPrefix.UP_RECONCILE, reconcileBatchSize);
+        if (targetList == null || targetList.isEmpty()) {
+            return;
+        }
+        int repaired = 0;
+        for (String target : targetList) {
+            String[] parts = target.split("_");
+            Integer type = Integer.valueOf(parts[0]);
+            Integer typeId = Integer.valueOf(parts[1]);
+            //先于待写回检查读取,之后的切换都会改变版本号
+            String version = stringRedisTemplate.opsForValue().get(upVersionKey(type, typeId));
+            Long size = stringRedisTemplate.opsForSet().size(upKey(type, typeId));
+            if (size == null || size == 0) {
+                continue;
+            }
+            //该对象还有未写回的点赞时 mysql 必然落后,放回去下次再对;其他对象的待写回不影响
+            String fieldPrefix = type + ":" + typeId + ":";
+            if (hasPendingField(RedisKeyConst.KeyPrefix.UP_PENDING, fieldPrefix)
+                    || hasPendingField(RedisKeyConst.KeyPrefix.UP_FLUSHING, fieldPrefix)) {
+                stringRedisTemplate.opsForSet().add(RedisKeyConst.KeyPrefix.UP_RECONCILE, target);
+                continue;
+            }
+            //覆盖失败说明期间有新的点赞,写回后会重新加入对账
+            if (size - 1 != upMapper.countByTypeId(type, typeId)
+                    && load(type, typeId, true, version == null ? 0L : Long.valueOf(version))) {
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            logger.warn("点赞对账修复 {} 个对象", repaired);
+        }
+    }
+
+    private UpVO toggle(Integer type, Integer typeId, Integer userId) {
+        List<String> keys = Arrays.asList(upKey(type, typeId), RedisKeyConst.KeyPrefix.UP_PENDING,
+                upVersionKey(type, typeId));
+        String field = type + ":" + typeId + ":" + userId;
+        for (int i = 0; i < 2; i++) {
+            List<?> result = stringRedisTemplate.execute(TOGGLE_SCRIPT, keys, String.valueOf(userId), field,
+                    String.valueOf(setTtl));
+            long status = (Long) result.get(0);
+            if (status >= 0) {
+                if (CommonConst.UpType.BLOG.equals(type)) {
+                    blogHotService.increaseByUp(typeId, status == 1);
+                }
+                return new UpVO(status == 1, ((Long) result.get(1)).intValue());
+            }
+            load(type, typeId, false, 0L);
+        }
+        throw new IllegalStateException("点赞集合加载失败,type:" + type + ",typeId:" + typeId);
+    }
+
+    /**
+     * 待写回 hash 中是否有以 fieldPrefix 开头的 field(type:typeId:userId)
+     */
+    private boolean hasPendingField(String key, String fieldPrefix) {
+        ScanOptions scanOptions = ScanOptions.scanOptions().match(fieldPrefix + "*").count(batchSize).build();
+        try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash().scan(key, scanOptions)) {
+            return cursor.hasNext();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 从 mysql 加载点赞用户集合
+     *
+     * @param force   为 true 时覆盖已有集合
+     * @param version 读取 mysql 前的对象版本号,覆盖时版本号已变化则不覆盖
+     * @return 是否写入了集合
+     */
+    private boolean load(Integer type, Integer typeId, boolean force, Long version) {
+        List<Integer> userIdList = upMapper.listUserIdByTypeId(type, typeId);
+        List<String> args = new ArrayList<>(userIdList.size() + 3);
+        args.add(String.valueOf(setTtl));
+        args.add(force ? "1" : "0");
+        args.add(String.valueOf(version));
+        for (Integer userId : userIdList) {
+            args.add(String.valueOf(userId));
+        }
+        Long result = stringRedisTemplate.execute(LOAD_SCRIPT,
+                Arrays.asList(upKey(type, typeId), upVersionKey(type, typeId)), args.toArray());
+        return result != null && result == 1;
+    }
+
+    private static String upKey(Integer type, Integer typeId) {
+        return RedisKeyConst.KeyPrefix.UP + type + "_" + typeId;
+    }
+
+    private static String upVersionKey(Integer type, Integer typeId) {
+        return RedisKeyConst.KeyPrefix.UP_VERSION + type + "_" + typeId;
     }
 }
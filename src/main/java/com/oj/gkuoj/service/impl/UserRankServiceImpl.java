@@ -0,0 +1,291 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.RedisKeyConst;
+import com.oj.gkuoj.common.UserFlagEnum;
+import com.oj.gkuoj.dao.UserMapper;
+import com.oj.gkuoj.entity.User;
+import com.oj.gkuoj.response.RankVO;
+import com.oj.gkuoj.service.UserRankService;
+import com.oj.gkuoj.utils.NameIndex;
+import com.oj.gkuoj.utils.RankIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 排名索引和昵称索引常驻内存,启动时全量加载,积分、昵称或用户状态变化时增量更新
+ * 多实例:变更时版本号加一并把 userId 记入 redis 变更集合,各实例每 check-interval 比对版本号,
+ * 只重新读取版本号之后变更过的用户;落后太多(变更记录已删除)时全量重建
+ * 定时全量重建,兜底直接改库等索引感知不到的变更;重建期间的增量更新在替换索引后重放,不会被旧快照覆盖
+ *
+ * @author m969130721@163.com
+ * @date 19-3-27 上午11:12
+ */
+@Service
+public class UserRankServiceImpl implements UserRankService {
+
+    private static final DefaultRedisScript<Long> CHANGE_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        CHANGE_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/user_rank_change.lua")));
+        CHANGE_SCRIPT.setResultType(Long.class);
+    }
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${user.rank-index.change-log-size:10000}")
+    private Integer changeLogSize;
+
+    private volatile RankIndex rankIndex = new RankIndex();
+
+    private volatile NameIndex nameIndex = new NameIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 重建期间增量更新过的用户,写锁保护
+     */
+    private boolean rebuilding;
+
+    private final Set<Integer> pendingRefreshSet = new HashSet<>();
+
+    /**
+     * 本实例已应用到的版本号,-1 表示未知(redis 不可用时),sync 时全量重建
+     */
+    private volatile long indexVersion = -1;
+
+    private Logger logger = LoggerFactory.getLogger(UserRankServiceImpl.class);
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    @Override
+    public void refresh(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            //提交前读库会读到旧数据,其他实例也可能先于提交读取
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    recordChangeAndApply(userId);
+                }
+            });
+        } else {
+            recordChangeAndApply(userId);
+        }
+    }
+
+    /**
+     * 按版本号读取其他实例记录的变更
+     */
+    @Scheduled(fixedDelayString = "${user.rank-index.check-interval:1000}", initialDelayString = "${user.rank-index.check-interval:1000}")
+    public synchronized void sync() {
+        long localVersion = indexVersion;
+        Set<String> changedSet;
+        long trimVersion;
+        Long version;
+        try {
+            version = getVersion();
+            if (version == null || version == localVersion) {
+                return;
+            }
+            changedSet = stringRedisTemplate.opsForZSet().rangeByScore(RedisKeyConst.KeyPrefix.USER_RANK_CHANGE,
+                    localVersion + 1, version);
+            //最后读取:读取变更期间发生的删除也能发现
+            String trim = stringRedisTemplate.opsForValue().get(RedisKeyConst.KeyPrefix.USER_RANK_TRIM);
+            trimVersion = trim == null ? 0L : Long.valueOf(trim);
+        } catch (Exception e) {
+            logger.warn("用户变更记录读取失败,{}", e.getMessage());
+            return;
+        }
+        //版本号变小说明 redis 数据丢失过
+        if (localVersion < 0 || localVersion < trimVersion || version < localVersion) {
+            rebuild();
+            return;
+        }
+        if (changedSet != null) {
+            for (String userId : changedSet) {
+                apply(Integer.valueOf(userId));
+            }
+        }
+        indexVersion = version;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${user.rank-index.rebuild-interval:600000}", initialDelayString = "${user.rank-index.rebuild-interval:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        //先读版本号再读库,读库期间的变更由下一次 sync 补上
+        Long version = getVersion();
+        List<RankVO> rankVOList = userMapper.listRankIndex();
+        RankIndex newIndex = new RankIndex();
+        NameIndex newNameIndex = new NameIndex();
+        for (RankVO rankVO : rankVOList) {
+            newIndex.put(rankVO.getId(), rankVO.getRating() == null ? 0 : rankVO.getRating());
+            newNameIndex.put(rankVO.getId(), rankVO.getName());
+        }
+        List<Integer> pendingList;
+        lock.writeLock().lock();
+        try {
+            rankIndex = newIndex;
+            nameIndex = newNameIndex;
+            rebuilding = false;
+            pendingList = new ArrayList<>(pendingRefreshSet);
+            pendingRefreshSet.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        indexVersion = version == null ? -1 : version;
+        //重建读库之后的增量可能不在新索引里,替换后重新读取一次
+        for (Integer userId : pendingList) {
+            apply(userId);
+        }
+        logger.info("排名索引重建完成,用户数:{},耗时:{}ms", newIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return rankIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Integer getRank(Integer userId) {
+        lock.readLock().lock();
+        try {
+            return rankIndex.getRank(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> listUserId(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return rankIndex.list(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countByName(String keyword) {
+        lock.readLock().lock();
+        try {
+            return nameIndex.search(keyword).length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> listUserIdByName(String keyword, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] matchIds = nameIndex.search(keyword);
+            if (matchIds.length == 0 || offset >= matchIds.length || limit <= 0) {
+                return Collections.emptyList();
+            }
+            //命中多时按名次顺序遍历排名索引,约扫描 (offset + limit) * 总人数 / 命中数 个用户即可取满一页
+            //命中少时遍历代价高,直接对命中的用户按名次排序
+            double scanCost = (double) (offset + limit) * rankIndex.size() / matchIds.length;
+            double sortCost = matchIds.length * (Math.log(matchIds.length) / Math.log(2) + 1);
+            if (scanCost <= sortCost) {
+                return rankIndex.list(userId -> Arrays.binarySearch(matchIds, userId) >= 0, offset, limit);
+            }
+            RankIndex index = rankIndex;
+            List<Integer> idList = new ArrayList<>(matchIds.length);
+            for (int userId : matchIds) {
+                idList.add(userId);
+            }
+            idList.sort(Comparator.comparing((Integer id) -> index.getRating(id), Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Comparator.naturalOrder()));
+            return new ArrayList<>(idList.subList(offset, Math.min(idList.size(), offset + limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void recordChangeAndApply(Integer userId) {
+        try {
+            stringRedisTemplate.execute(CHANGE_SCRIPT, Arrays.asList(RedisKeyConst.KeyPrefix.USER_RANK_VERSION,
+                    RedisKeyConst.KeyPrefix.USER_RANK_CHANGE, RedisKeyConst.KeyPrefix.USER_RANK_TRIM),
+                    String.valueOf(userId), String.valueOf(changeLogSize));
+        } catch (Exception e) {
+            //其他实例最多在 rebuild-interval 后重建
+            logger.warn("用户变更记录写入失败,userId:{},{}", userId, e.getMessage());
+        }
+        apply(userId);
+    }
+
+    /**
+     * 从 mysql 重新读取该用户并更新本实例索引
+     */
+    private void apply(Integer userId) {
+        User user = userMapper.selectByPrimaryKey(userId);
+        lock.writeLock().lock();
+        try {
+            if (user == null || !UserFlagEnum.ACTIVE.getId().equals(user.getFlag())) {
+                rankIndex.remove(userId);
+                nameIndex.remove(userId);
+            } else {
+                rankIndex.put(userId, user.getRating() == null ? 0 : user.getRating());
+                nameIndex.put(userId, user.getName());
+            }
+            if (rebuilding) {
+                pendingRefreshSet.add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Long getVersion() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(RedisKeyConst.KeyPrefix.USER_RANK_VERSION);
+            return version == null ? 0L : Long.valueOf(version);
+        } catch (Exception e) {
+            logger.warn("用户排名索引版本号读取失败,{}", e.getMessage());
+            return null;
+        }
+    }
+}
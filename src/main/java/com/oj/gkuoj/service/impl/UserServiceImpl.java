@@ -1,5 +1,6 @@
 package com.oj.gkuoj.service.impl;
 
+import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import com.oj.gkuoj.common.*;
@@ -12,6 +13,7 @@ import com.oj.gkuoj.dao.RoleMapper;
 import com.oj.gkuoj.dao.UserMapper;
 import com.oj.gkuoj.dao.UserRoleMapper;
 import com.oj.gkuoj.response.UserDetailVO;
+import com.oj.gkuoj.service.UserRankService;
 import com.oj.gkuoj.service.UserService;
 import com.oj.gkuoj.entity.User;
 import com.oj.gkuoj.utils.BeanUtil;
@@ -34,7 +36,9 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import javax.mail.internet.MimeMessage;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -66,6 +70,9 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserRankService userRankService;
+
     private Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     @Override
@@ -120,6 +127,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             userRole.setUserId(user.getId());
             userRole.setRoleId(request.getRoleId());
             effect = userRoleMapper.insertSelective(userRole);
+            userRankService.refresh(user.getId());
         }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.ADD_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.ADD_FAIL);
@@ -132,6 +140,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = userMapper.updateUserFlagById(id, UserFlagEnum.DELETED.getId());
+        userRankService.refresh(id);
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.DEL_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.DEL_FAIL);
     }
@@ -143,6 +152,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = userMapper.updateUserFlagById(id, UserFlagEnum.LOCK.getId());
+        userRankService.refresh(id);
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
     }
@@ -154,6 +164,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
         }
         int effect = userMapper.updateUserFlagById(id, UserFlagEnum.ACTIVE.getId());
+        userRankService.refresh(id);
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
     }
@@ -183,6 +194,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             userRole.setRoleId(request.getRoleId());
             userRole.setUserId(user.getId());
             effect = userRoleMapper.insertSelective(userRole);
+            userRankService.refresh(user.getId());
         }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.UPDATE_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.UPDATE_FAIL);
@@ -298,6 +310,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             userRole.setRoleId(RoleEnum.USER.getId());
             userRole.setUserId(user.getId());
             effect = userRoleMapper.insertSelective(userRole);
+            userRankService.refresh(user.getId());
         }
         return effect > 0 ? RestResponseVO.createBySuccessMessage(StringConst.ADD_SUCCESS)
                 : RestResponseVO.createByErrorMessage(StringConst.ADD_FAIL);
@@ -305,10 +318,34 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
     @Override
     public RestResponseVO<PageInfo> listRankUser2Page(Integer pageNum, Integer pageSize, String keyword) {
-        PageHelper.startPage(pageNum, pageSize, true);
-        List<RankVO> userList = userMapper.listRankUser(keyword);
-        PageInfo<RankVO> pageInfo = new PageInfo<>(userList);
-        return RestResponseVO.createBySuccess(pageInfo);
+        if (pageNum == null || pageSize == null || pageNum < 1 || pageSize < 1) {
+            return RestResponseVO.createByErrorEnum(RestResponseEnum.INVALID_REQUEST);
+        }
+        //按名次从索引翻页,有关键字时先经昵称索引过滤,再按 id 批量取用户信息
+        Page<RankVO> page = new Page<>(pageNum, pageSize);
+        int offset = (pageNum - 1) * pageSize;
+        List<Integer> idList;
+        if (StringUtils.isNoneBlank(keyword)) {
+            page.setTotal(userRankService.countByName(keyword.trim()));
+            idList = userRankService.listUserIdByName(keyword.trim(), offset, pageSize);
+        } else {
+            page.setTotal(userRankService.count());
+            idList = userRankService.listUserId(offset, pageSize);
+        }
+        if (!idList.isEmpty()) {
+            Map<Integer, RankVO> rankVOMap = new HashMap<>(idList.size() * 2);
+            for (RankVO rankVO : userMapper.listRankVOByIds(idList)) {
+                rankVOMap.put(rankVO.getId(), rankVO);
+            }
+            for (Integer id : idList) {
+                RankVO rankVO = rankVOMap.get(id);
+                if (rankVO != null) {
+                    rankVO.setRank(userRankService.getRank(id));
+                    page.add(rankVO);
+                }
+            }
+        }
+        return RestResponseVO.createBySuccess(new PageInfo<>(page));
     }
 
 
@@ -0,0 +1,342 @@
+package com.oj.gkuoj.service.impl;
+
+import com.oj.gkuoj.common.JudgeStatusEnum;
+import com.oj.gkuoj.dao.CompetitionProblemMapper;
+import com.oj.gkuoj.dao.ProblemMapper;
+import com.oj.gkuoj.dao.ProblemResultMapper;
+import com.oj.gkuoj.dao.UserMapper;
+import com.oj.gkuoj.dto.VerdictCountDelta;
+import com.oj.gkuoj.response.RestResponseVO;
+import com.oj.gkuoj.response.VerdictCounterStatsVO;
+import com.oj.gkuoj.service.VerdictCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 判题计数先在内存中按 (行, 计数列) 用 LongAdder 累加,定时和停机时按表批量回写,
+ * 热门题目不再每个结果锁一次行
+ * 回写成功后才从累加器中减去已写入的值,并发累加不会丢;回写失败保留增量,下次重试
+ * 未落库的计数最多为一个回写间隔内的结果(进程被强杀时丢失),可通过 getStats 观察
+ * 结果消息可能重投(消费失败重试)、判题机也可能重复上报,累加前先按 runNum 在 problem_result 上认领,
+ * 认领成功的节点才计数
+ * 默认关闭:判题机仍在直接更新计数列,判题机去掉这部分更新后再打开 judge.counter.enabled,否则重复计数
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午3:40
+ */
+@Service
+public class VerdictCounterServiceImpl implements VerdictCounterService {
+
+    private static final int TYPE_PROBLEM = 1;
+
+    private static final int TYPE_USER = 2;
+
+    private static final int TYPE_COMPETITION_PROBLEM = 3;
+
+    /**
+     * 累加器下标:提交数 + 各结果数
+     */
+    private static final int SUBMIT = 0;
+
+    private static final int AC = 1;
+
+    private static final int WA = 2;
+
+    private static final int TLE = 3;
+
+    private static final int PE = 4;
+
+    private static final int ME = 5;
+
+    private static final int RE = 6;
+
+    private static final int CE = 7;
+
+    private static final int SLOT_COUNT = 8;
+
+    @Autowired
+    private ProblemMapper problemMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private CompetitionProblemMapper competitionProblemMapper;
+
+    @Autowired
+    private ProblemResultMapper problemResultMapper;
+
+    @Value("${judge.counter.enabled:false}")
+    private Boolean enabled;
+
+    @Value("${judge.counter.batch-size:500}")
+    private Integer batchSize;
+
+    private final Map<RowKey, LongAdder[]> rowMap = new ConcurrentHashMap<>();
+
+    private final LongAdder recordCount = new LongAdder();
+
+    private final LongAdder flushedCount = new LongAdder();
+
+    private final LongAdder flushCount = new LongAdder();
+
+    private final LongAdder failedFlushCount = new LongAdder();
+
+    private volatile Date lastFlushTime;
+
+    private volatile long lastFlushCost;
+
+    private Logger logger = LoggerFactory.getLogger(VerdictCounterServiceImpl.class);
+
+    @Override
+    public void record(String runNum, Integer userId, Integer problemId, Integer compId, Integer status) {
+        int slot = slotOf(status);
+        if (!enabled || slot < 0 || runNum == null || problemId == null) {
+            return;
+        }
+        try {
+            if (problemResultMapper.updateCountedByRunNum(runNum) == 0) {
+                //其他节点已计数,或重复上报
+                return;
+            }
+        } catch (Exception e) {
+            logger.error("判题计数认领失败,本次不计数,runNum:{}", runNum, e);
+            return;
+        }
+        add(new RowKey(TYPE_PROBLEM, problemId, 0), slot);
+        if (userId != null) {
+            add(new RowKey(TYPE_USER, userId, 0), slot);
+        }
+        if (compId != null) {
+            add(new RowKey(TYPE_COMPETITION_PROBLEM, compId, problemId), slot);
+        }
+        recordCount.increment();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${judge.counter.flush-interval:5000}")
+    public synchronized void flush() {
+        long start = System.currentTimeMillis();
+        List<PendingRow> problemRowList = new ArrayList<>();
+        List<PendingRow> userRowList = new ArrayList<>();
+        List<PendingRow> competitionProblemRowList = new ArrayList<>();
+        rowMap.forEach((rowKey, adders) -> {
+            long[] values = new long[SLOT_COUNT];
+            boolean changed = false;
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                values[i] = adders[i].sum();
+                changed |= values[i] != 0;
+            }
+            if (!changed) {
+                return;
+            }
+            PendingRow pendingRow = new PendingRow(rowKey, adders, values);
+            if (rowKey.type == TYPE_PROBLEM) {
+                problemRowList.add(pendingRow);
+            } else if (rowKey.type == TYPE_USER) {
+                userRowList.add(pendingRow);
+            } else {
+                competitionProblemRowList.add(pendingRow);
+            }
+        });
+        if (problemRowList.isEmpty() && userRowList.isEmpty() && competitionProblemRowList.isEmpty()) {
+            return;
+        }
+        flushRows(problemRowList, problemMapper::updateCountByDelta);
+        flushRows(userRowList, userMapper::updateCountByDelta);
+        flushRows(competitionProblemRowList, competitionProblemMapper::updateCountByDelta);
+        flushCount.increment();
+        lastFlushTime = new Date();
+        lastFlushCost = System.currentTimeMillis() - start;
+        logger.debug("判题计数回写完成,题目:{}行,用户:{}行,比赛题目:{}行,耗时:{}ms", problemRowList.size(),
+                userRowList.size(), competitionProblemRowList.size(), lastFlushCost);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+        long pending = recordCount.sum() - flushedCount.sum();
+        if (pending != 0) {
+            logger.error("停机时仍有{}个判题结果的计数未写入数据库", pending);
+        }
+    }
+
+    @Override
+    public RestResponseVO<VerdictCounterStatsVO> getStats() {
+        int pendingRows = 0;
+        for (LongAdder[] adders : rowMap.values()) {
+            for (LongAdder adder : adders) {
+                if (adder.sum() != 0) {
+                    pendingRows++;
+                    break;
+                }
+            }
+        }
+        VerdictCounterStatsVO statsVO = new VerdictCounterStatsVO();
+        long record = recordCount.sum();
+        long flushed = flushedCount.sum();
+        statsVO.setRecordCount(record);
+        statsVO.setFlushedCount(flushed);
+        statsVO.setPendingCount(record - flushed);
+        statsVO.setPendingRows(pendingRows);
+        statsVO.setFlushCount(flushCount.sum());
+        statsVO.setFailedFlushCount(failedFlushCount.sum());
+        statsVO.setLastFlushTime(lastFlushTime);
+        statsVO.setLastFlushCost(lastFlushCost);
+        return RestResponseVO.createBySuccess(statsVO);
+    }
+
+    private void add(RowKey rowKey, int slot) {
+        LongAdder[] adders = rowMap.get(rowKey);
+        if (adders == null) {
+            adders = rowMap.computeIfAbsent(rowKey, key -> {
+                LongAdder[] newAdders = new LongAdder[SLOT_COUNT];
+                for (int i = 0; i < SLOT_COUNT; i++) {
+                    newAdders[i] = new LongAdder();
+                }
+                return newAdders;
+            });
+        }
+        adders[SUBMIT].increment();
+        adders[slot].increment();
+    }
+
+    /**
+     * 分批回写一张表,每批一条 update
+     */
+    private void flushRows(List<PendingRow> pendingRowList, Function<List<VerdictCountDelta>, Integer> updater) {
+        for (int from = 0; from < pendingRowList.size(); from += batchSize) {
+            List<PendingRow> batch = pendingRowList.subList(from, Math.min(from + batchSize, pendingRowList.size()));
+            List<VerdictCountDelta> deltaList = new ArrayList<>(batch.size());
+            for (PendingRow pendingRow : batch) {
+                deltaList.add(pendingRow.toDelta());
+            }
+            try {
+                updater.apply(deltaList);
+            } catch (Exception e) {
+                failedFlushCount.increment();
+                logger.error("判题计数回写失败,下次重试,行数:{}", batch.size(), e);
+                continue;
+            }
+            for (PendingRow pendingRow : batch) {
+                for (int i = 0; i < SLOT_COUNT; i++) {
+                    pendingRow.adders[i].add(-pendingRow.values[i]);
+                }
+                if (pendingRow.rowKey.type == TYPE_PROBLEM) {
+                    //每个结果恰好计入一次题目提交数
+                    flushedCount.add(pendingRow.values[SUBMIT]);
+                }
+            }
+        }
+    }
+
+    private static int slotOf(Integer status) {
+        JudgeStatusEnum statusEnum = JudgeStatusEnum.getStatusConst(status);
+        if (statusEnum == null) {
+            return -1;
+        }
+        switch (statusEnum) {
+            case ACCEPTED:
+                return AC;
+            case WRONG_ANSWER:
+                return WA;
+            case TIME_LIMIT_EXCEEDED:
+                return TLE;
+            case PRESENTATION_ERROR:
+                return PE;
+            case MEMORY_LIMIT_EXCEEDED:
+                return ME;
+            case RUNTIME_ERROR:
+                return RE;
+            case COMPILE_ERROR:
+                return CE;
+            default:
+                return -1;
+        }
+    }
+
+
+    private static class RowKey {
+
+        private final int type;
+
+        private final int id;
+
+        /**
+         * 比赛题目的 problemId,其余为 0
+         */
+        private final int subId;
+
+        RowKey(int type, int id, int subId) {
+            this.type = type;
+            this.id = id;
+            this.subId = subId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowKey)) {
+                return false;
+            }
+            RowKey rowKey = (RowKey) o;
+            return type == rowKey.type && id == rowKey.id && subId == rowKey.subId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id, subId);
+        }
+    }
+
+
+    private static class PendingRow {
+
+        private final RowKey rowKey;
+
+        private final LongAdder[] adders;
+
+        private final long[] values;
+
+        PendingRow(RowKey rowKey, LongAdder[] adders, long[] values) {
+            this.rowKey = rowKey;
+            this.adders = adders;
+            this.values = values;
+        }
+
+        VerdictCountDelta toDelta() {
+            VerdictCountDelta delta = new VerdictCountDelta();
+            if (rowKey.type == TYPE_COMPETITION_PROBLEM) {
+                delta.setCompId(rowKey.id);
+                delta.setProblemId(rowKey.subId);
+            } else {
+                delta.setId(rowKey.id);
+            }
+            delta.setSubmitCount(values[SUBMIT]);
+            delta.setAcCount(values[AC]);
+            delta.setWaCount(values[WA]);
+            delta.setTleCount(values[TLE]);
+            delta.setPeCount(values[PE]);
+            delta.setMeCount(values[ME]);
+            delta.setReCount(values[RE]);
+            delta.setCeCount(values[CE]);
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.oj.gkuoj.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 容量固定的 LRU 缓存,超出容量时淘汰最久未访问的条目
+ * 方法均加锁,临界区只有 map 操作,值的加载放在锁外
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 下午7:10
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> map;
+
+    public LruCache(int maxSize) {
+        map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+}
@@ -0,0 +1,146 @@
+package com.oj.gkuoj.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 昵称子串索引:每个昵称拆成单字和相邻两字(不区分大小写),倒排到用户 id
+ * 查询时取关键字各 gram 中最短的倒排表,再逐个校验是否包含关键字
+ * 非线程安全,由调用方加锁
+ *
+ * @author m969130721@163.com
+ * @date 19-3-27 下午3:40
+ */
+public class NameIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * gram -> 用户 id(升序)
+     */
+    private final Map<String, IntList> postingMap = new HashMap<>();
+
+    /**
+     * 用户 id -> 小写昵称
+     */
+    private final Map<Integer, String> nameMap = new HashMap<>();
+
+    public void put(Integer userId, String name) {
+        String lowerName = name == null ? "" : name.toLowerCase();
+        String oldName = nameMap.get(userId);
+        if (lowerName.equals(oldName)) {
+            return;
+        }
+        if (oldName != null) {
+            remove(userId);
+        }
+        nameMap.put(userId, lowerName);
+        for (String gram : grams(lowerName)) {
+            postingMap.computeIfAbsent(gram, key -> new IntList()).add(userId);
+        }
+    }
+
+    public void remove(Integer userId) {
+        String name = nameMap.remove(userId);
+        if (name == null) {
+            return;
+        }
+        for (String gram : grams(name)) {
+            IntList posting = postingMap.get(gram);
+            if (posting != null) {
+                posting.remove(userId);
+                if (posting.size == 0) {
+                    postingMap.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * 昵称包含关键字的用户 id,升序,可直接二分判断是否命中
+     */
+    public int[] search(String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            return EMPTY;
+        }
+        String lowerKeyword = keyword.toLowerCase();
+        Set<String> gramSet = lowerKeyword.length() == 1 ? Collections.singleton(lowerKeyword) : bigrams(lowerKeyword);
+        IntList shortest = null;
+        for (String gram : gramSet) {
+            IntList posting = postingMap.get(gram);
+            if (posting == null) {
+                return EMPTY;
+            }
+            if (shortest == null || posting.size < shortest.size) {
+                shortest = posting;
+            }
+        }
+        //一、两个字的关键字,倒排表即结果
+        if (lowerKeyword.length() <= 2) {
+            return Arrays.copyOf(shortest.values, shortest.size);
+        }
+        int[] ids = new int[shortest.size];
+        int count = 0;
+        for (int i = 0; i < shortest.size; i++) {
+            int userId = shortest.values[i];
+            if (nameMap.get(userId).contains(lowerKeyword)) {
+                ids[count++] = userId;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static Set<String> grams(String name) {
+        Set<String> gramSet = bigrams(name);
+        for (int i = 0; i < name.length(); i++) {
+            gramSet.add(String.valueOf(name.charAt(i)));
+        }
+        return gramSet;
+    }
+
+    private static Set<String> bigrams(String str) {
+        Set<String> gramSet = new HashSet<>();
+        for (int i = 0; i + 2 <= str.length(); i++) {
+            gramSet.add(str.substring(i, i + 2));
+        }
+        return gramSet;
+    }
+
+
+    /**
+     * 有序 int 数组,比 Set<Integer> 省内存
+     */
+    private static class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = value;
+            size++;
+        }
+
+        void remove(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
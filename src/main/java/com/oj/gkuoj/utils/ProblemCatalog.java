@@ -0,0 +1,297 @@
+package com.oj.gkuoj.utils;
+
+import com.oj.gkuoj.response.ProblemVO;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 题目列表的内存快照,构建后只读
+ * 每个标签、难度一个 BitSet(下标为题目在快照中的位置),题名按单字和相邻两字倒排
+ * 筛选即 BitSet 求交,计数即 cardinality,排序顺序构建时预先算好
+ * 另按难度保存可见题目(flag = 0)的位置数组,随机选题直接按下标取
+ *
+ * @author m969130721@163.com
+ * @date 19-3-28 下午2:20
+ */
+public class ProblemCatalog {
+
+    /**
+     * 排序方式:最新
+     */
+    private static final int SORT_CREATE_TIME = 1;
+
+    /**
+     * 排序方式:通过数
+     */
+    private static final int SORT_AC_COUNT = 2;
+
+    /**
+     * 按 id 升序
+     */
+    private final List<ProblemVO> problemList;
+
+    private final Map<Integer, Integer> positionMap;
+
+    private final Map<Integer, BitSet> tagBitSetMap = new HashMap<>();
+
+    private final Map<Integer, BitSet> levelBitSetMap = new HashMap<>();
+
+    private final Map<String, BitSet> gramBitSetMap = new HashMap<>();
+
+    private final String[] lowerNames;
+
+    private final int[] createTimeOrder;
+
+    private final int[] acCountOrder;
+
+    /**
+     * 可见题目的位置
+     */
+    private final int[] visiblePositions;
+
+    /**
+     * 难度 -> 该难度可见题目的位置
+     */
+    private final Map<Integer, int[]> visibleLevelPositionMap = new HashMap<>();
+
+    public ProblemCatalog(List<ProblemVO> problemVOList) {
+        problemList = new ArrayList<>(problemVOList);
+        problemList.sort(Comparator.comparing(ProblemVO::getId));
+        int size = problemList.size();
+        positionMap = new HashMap<>(size * 2);
+        lowerNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            ProblemVO problemVO = problemList.get(i);
+            positionMap.put(problemVO.getId(), i);
+            levelBitSetMap.computeIfAbsent(problemVO.getLevel(), key -> new BitSet(size)).set(i);
+            if (StringUtils.isNoneBlank(problemVO.getTagIds())) {
+                for (String tagId : problemVO.getTagIds().split(",")) {
+                    tagBitSetMap.computeIfAbsent(Integer.valueOf(tagId.trim()), key -> new BitSet(size)).set(i);
+                }
+            }
+            lowerNames[i] = problemVO.getName() == null ? "" : problemVO.getName().toLowerCase();
+            for (int j = 0; j < lowerNames[i].length(); j++) {
+                gramBitSetMap.computeIfAbsent(lowerNames[i].substring(j, j + 1), key -> new BitSet(size)).set(i);
+                if (j + 2 <= lowerNames[i].length()) {
+                    gramBitSetMap.computeIfAbsent(lowerNames[i].substring(j, j + 2), key -> new BitSet(size)).set(i);
+                }
+            }
+        }
+        List<Integer> visibleList = new ArrayList<>(size);
+        Map<Integer, List<Integer>> visibleLevelMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            ProblemVO problemVO = problemList.get(i);
+            if (problemVO.getFlag() != null && problemVO.getFlag() == 0) {
+                visibleList.add(i);
+                visibleLevelMap.computeIfAbsent(problemVO.getLevel(), key -> new ArrayList<>()).add(i);
+            }
+        }
+        visiblePositions = toArray(visibleList);
+        visibleLevelMap.forEach((level, positionList) -> visibleLevelPositionMap.put(level, toArray(positionList)));
+        createTimeOrder = order(Comparator.comparing(ProblemVO::getCreateTime,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        acCountOrder = order(Comparator.comparing(ProblemVO::getAcCount,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+    }
+
+    public int size() {
+        return problemList.size();
+    }
+
+    /**
+     * 与原 sql 条件一致:关键字匹配 id 或题名包含,难度相等(-1 不限),标签任一命中
+     */
+    public BitSet filter(String keyword, Integer level, List<Integer> tagIdList) {
+        BitSet matched = new BitSet(problemList.size());
+        matched.set(0, problemList.size());
+        if (StringUtils.isNoneBlank(keyword)) {
+            matched.and(matchKeyword(keyword.trim()));
+        }
+        if (level != null && level != -1) {
+            BitSet levelBitSet = levelBitSetMap.get(level);
+            if (levelBitSet == null) {
+                return new BitSet();
+            }
+            matched.and(levelBitSet);
+        }
+        if (tagIdList != null) {
+            BitSet tagBitSet = new BitSet(problemList.size());
+            for (Integer tagId : tagIdList) {
+                BitSet bitSet = tagBitSetMap.get(tagId);
+                if (bitSet != null) {
+                    tagBitSet.or(bitSet);
+                }
+            }
+            matched.and(tagBitSet);
+        }
+        return matched;
+    }
+
+    /**
+     * 按排序方式取一页,sort 为空或其他值时按 id 升序
+     */
+    public List<ProblemVO> page(BitSet matched, Integer sort, int offset, int limit) {
+        if (offset < 0 || limit <= 0 || matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ProblemVO> pageList = new ArrayList<>(limit);
+        int skip = offset;
+        if (sort != null && (sort == SORT_CREATE_TIME || sort == SORT_AC_COUNT)) {
+            int[] order = sort == SORT_CREATE_TIME ? createTimeOrder : acCountOrder;
+            for (int i = 0; i < order.length && pageList.size() < limit; i++) {
+                if (matched.get(order[i]) && skip-- <= 0) {
+                    pageList.add(copy(problemList.get(order[i])));
+                }
+            }
+        } else {
+            for (int i = matched.nextSetBit(0); i >= 0 && pageList.size() < limit; i = matched.nextSetBit(i + 1)) {
+                if (skip-- <= 0) {
+                    pageList.add(copy(problemList.get(i)));
+                }
+            }
+        }
+        return pageList;
+    }
+
+    /**
+     * 可见题目,按 id 升序
+     */
+    public List<ProblemVO> listVisible() {
+        List<ProblemVO> visibleList = new ArrayList<>(visiblePositions.length);
+        for (int position : visiblePositions) {
+            visibleList.add(copy(problemList.get(position)));
+        }
+        return visibleList;
+    }
+
+    /**
+     * 按 id 取可见题目,顺序与入参一致,不存在或已隐藏的跳过
+     */
+    public List<ProblemVO> listVisibleByIds(List<Integer> problemIdList) {
+        List<ProblemVO> visibleList = new ArrayList<>(problemIdList.size());
+        for (Integer problemId : problemIdList) {
+            Integer position = positionMap.get(problemId);
+            if (position != null && Arrays.binarySearch(visiblePositions, position) >= 0) {
+                visibleList.add(copy(problemList.get(position)));
+            }
+        }
+        return visibleList;
+    }
+
+    /**
+     * 随机一道可见题目的 id,没有时返回 null
+     */
+    public Integer randomId() {
+        if (visiblePositions.length == 0) {
+            return null;
+        }
+        return problemList.get(visiblePositions[ThreadLocalRandom.current().nextInt(visiblePositions.length)]).getId();
+    }
+
+    /**
+     * 与该题同难度的可见题目中随机取 row 道(不含该题本身),O(row)
+     */
+    public List<ProblemVO> sampleSameLevel(Integer problemId, int row) {
+        Integer position = positionMap.get(problemId);
+        if (position == null || row <= 0) {
+            return Collections.emptyList();
+        }
+        int[] positions = visibleLevelPositionMap.get(problemList.get(position).getLevel());
+        if (positions == null) {
+            return Collections.emptyList();
+        }
+        //该题可见时在数组中占一个下标,抽样时跳过
+        int self = Arrays.binarySearch(positions, position);
+        int candidateCount = self >= 0 ? positions.length - 1 : positions.length;
+        int count = Math.min(row, candidateCount);
+        //Floyd 抽样:不放回地等概率取 count 个下标
+        Set<Integer> sampled = new LinkedHashSet<>(count * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int j = candidateCount - count; j < candidateCount; j++) {
+            int index = random.nextInt(j + 1);
+            sampled.add(sampled.contains(index) ? j : index);
+        }
+        List<ProblemVO> sampleList = new ArrayList<>(count);
+        for (int index : sampled) {
+            if (self >= 0 && index >= self) {
+                index++;
+            }
+            sampleList.add(copy(problemList.get(positions[index])));
+        }
+        Collections.shuffle(sampleList, random);
+        return sampleList;
+    }
+
+    private BitSet matchKeyword(String keyword) {
+        BitSet result = new BitSet(problemList.size());
+        String lowerKeyword = keyword.toLowerCase();
+        //取关键字各 gram 中最稀疏的 BitSet 作为候选,再校验是否包含
+        BitSet candidate = null;
+        int gramLength = Math.min(2, lowerKeyword.length());
+        for (int i = 0; i + gramLength <= lowerKeyword.length(); i++) {
+            BitSet bitSet = gramBitSetMap.get(lowerKeyword.substring(i, i + gramLength));
+            if (bitSet == null) {
+                candidate = null;
+                break;
+            }
+            if (candidate == null || bitSet.cardinality() < candidate.cardinality()) {
+                candidate = bitSet;
+            }
+        }
+        if (candidate != null) {
+            for (int i = candidate.nextSetBit(0); i >= 0; i = candidate.nextSetBit(i + 1)) {
+                if (lowerKeyword.length() <= 2 || lowerNames[i].contains(lowerKeyword)) {
+                    result.set(i);
+                }
+            }
+        }
+        if (StringUtils.isNumeric(keyword) && keyword.length() < 10) {
+            Integer position = positionMap.get(Integer.valueOf(keyword));
+            if (position != null) {
+                result.set(position);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 调用方会设置 userStatus 等字段,返回副本避免改到快照
+     */
+    private static ProblemVO copy(ProblemVO source) {
+        ProblemVO problemVO = new ProblemVO(source.getId(), source.getName(), source.getTags(), source.getLevel(),
+                source.getSubmitCount(), source.getAcCount(), source.getWaCount(), source.getFlag(),
+                source.getCreateTime(), source.getUpdateTime(), null);
+        problemVO.setTagIds(source.getTagIds());
+        return problemVO;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private int[] order(Comparator<ProblemVO> comparator) {
+        List<Integer> positionList = new ArrayList<>(problemList.size());
+        for (int i = 0; i < problemList.size(); i++) {
+            positionList.add(i);
+        }
+        //相同时按 id 升序,即位置升序
+        positionList.sort(Comparator.comparing((Integer i) -> problemList.get(i), comparator)
+                .thenComparing(Comparator.naturalOrder()));
+        return toArray(positionList);
+    }
+}
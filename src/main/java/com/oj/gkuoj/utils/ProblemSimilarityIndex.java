@@ -0,0 +1,168 @@
+package com.oj.gkuoj.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 题目相似度索引,相似度 = 标签权重 * 标签 Jaccard + (1 - 标签权重) * 共同通过余弦
+ * 标签 Jaccard:|A∩B| / |A∪B|;共同通过余弦:同时通过两题的人数 / sqrt(通过 A 人数 * 通过 B 人数)
+ * 候选只取与该题有共同标签或有共同通过用户的题目,不做全量两两比较
+ * 非线程安全,由调用方加锁
+ *
+ * @author m969130721@163.com
+ * @date 19-3-29 上午10:15
+ */
+public class ProblemSimilarityIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final double tagWeight;
+
+    /**
+     * 可见题目 id -> 标签 id(升序)
+     */
+    private Map<Integer, int[]> problemTagMap = new HashMap<>();
+
+    /**
+     * 标签 id -> 题目 id
+     */
+    private Map<Integer, List<Integer>> tagProblemMap = new HashMap<>();
+
+    /**
+     * 用户 id -> 通过的题目 id
+     */
+    private final Map<Integer, Set<Integer>> userSolvedMap = new HashMap<>();
+
+    /**
+     * 题目 id -> 通过的用户 id
+     */
+    private final Map<Integer, Set<Integer>> problemSolverMap = new HashMap<>();
+
+    public ProblemSimilarityIndex(double tagWeight) {
+        this.tagWeight = tagWeight;
+    }
+
+    /**
+     * 整体替换可见题目及其标签
+     */
+    public void setProblemTags(Map<Integer, int[]> problemTagMap) {
+        this.problemTagMap = new HashMap<>(problemTagMap);
+        tagProblemMap = new HashMap<>();
+        problemTagMap.forEach((problemId, tagIds) -> {
+            for (int tagId : tagIds) {
+                tagProblemMap.computeIfAbsent(tagId, key -> new ArrayList<>()).add(problemId);
+            }
+        });
+    }
+
+    public Set<Integer> problemIds() {
+        return Collections.unmodifiableSet(problemTagMap.keySet());
+    }
+
+    public boolean sameProblemTags(Map<Integer, int[]> otherMap) {
+        if (otherMap.size() != problemTagMap.size()) {
+            return false;
+        }
+        for (Map.Entry<Integer, int[]> entry : otherMap.entrySet()) {
+            int[] tagIds = problemTagMap.get(entry.getKey());
+            if (tagIds == null || !Arrays.equals(tagIds, entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次通过,已记录过返回 false
+     */
+    public boolean addSolved(Integer userId, Integer problemId) {
+        if (!userSolvedMap.computeIfAbsent(userId, key -> new HashSet<>()).add(problemId)) {
+            return false;
+        }
+        problemSolverMap.computeIfAbsent(problemId, key -> new HashSet<>()).add(userId);
+        return true;
+    }
+
+    public Set<Integer> listSolved(Integer userId) {
+        Set<Integer> solvedSet = userSolvedMap.get(userId);
+        return solvedSet == null ? Collections.emptySet() : Collections.unmodifiableSet(solvedSet);
+    }
+
+    /**
+     * 与该题最相似的 k 道可见题目,相似度降序,相同时 id 升序
+     */
+    public int[] topK(Integer problemId, int k) {
+        if (k <= 0 || !problemTagMap.containsKey(problemId)) {
+            return EMPTY;
+        }
+        //共同标签数
+        Map<Integer, Integer> sharedTagMap = new HashMap<>();
+        int[] tagIds = problemTagMap.get(problemId);
+        for (int tagId : tagIds) {
+            for (Integer otherId : tagProblemMap.get(tagId)) {
+                sharedTagMap.merge(otherId, 1, Integer::sum);
+            }
+        }
+        //共同通过人数
+        Map<Integer, Integer> coSolveMap = new HashMap<>();
+        Set<Integer> solverSet = problemSolverMap.getOrDefault(problemId, Collections.emptySet());
+        for (Integer userId : solverSet) {
+            for (Integer otherId : userSolvedMap.get(userId)) {
+                coSolveMap.merge(otherId, 1, Integer::sum);
+            }
+        }
+        Set<Integer> candidateSet = new HashSet<>(sharedTagMap.keySet());
+        candidateSet.addAll(coSolveMap.keySet());
+        candidateSet.remove(problemId);
+
+        //小顶堆保留得分最高的 k 个
+        Comparator<Candidate> comparator = Comparator.comparingDouble((Candidate c) -> c.score)
+                .thenComparing((Candidate c) -> c.problemId, Comparator.reverseOrder());
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(k + 1, comparator);
+        for (Integer otherId : candidateSet) {
+            int[] otherTagIds = problemTagMap.get(otherId);
+            if (otherTagIds == null) {
+                continue;
+            }
+            double score = 0;
+            Integer sharedTag = sharedTagMap.get(otherId);
+            if (sharedTag != null) {
+                score += tagWeight * sharedTag / (tagIds.length + otherTagIds.length - sharedTag);
+            }
+            Integer coSolve = coSolveMap.get(otherId);
+            if (coSolve != null) {
+                score += (1 - tagWeight) * coSolve / Math.sqrt((double) solverSet.size() * problemSolverMap.get(otherId).size());
+            }
+            heap.offer(new Candidate(otherId, score));
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll().problemId;
+        }
+        return result;
+    }
+
+
+    private static class Candidate {
+
+        private final int problemId;
+
+        private final double score;
+
+        Candidate(int problemId, double score) {
+            this.problemId = problemId;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.oj.gkuoj.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * 积分排名索引,按积分值建两棵树状数组:
+ * userTree 记每个积分的人数,用于按名次翻页;distinctTree 记该积分是否有人,用于求名次
+ * 名次 = 积分严格更高的不同积分个数 + 1,同积分按 id 升序
+ * 非线程安全,由调用方加锁
+ *
+ * @author m969130721@163.com
+ * @date 19-3-27 上午10:20
+ */
+public class RankIndex {
+
+    /**
+     * 积分值域两端预留的空间,超出时整体重建
+     */
+    private static final int PADDING = 1024;
+
+    /**
+     * 值域内最高积分,下标 i 对应积分 top - i + 1,前缀和即积分从高到低累加
+     */
+    private int top;
+
+    private int size;
+
+    private int[] userTree;
+
+    private int[] distinctTree;
+
+    /**
+     * 积分 -> 该积分下的用户 id(升序),按积分从高到低排列
+     */
+    private final NavigableMap<Integer, List<Integer>> bucketMap = new TreeMap<>(Comparator.reverseOrder());
+
+    /**
+     * 用户 id -> 积分
+     */
+    private final Map<Integer, Integer> ratingMap = new HashMap<>();
+
+    public RankIndex() {
+        resize(0, 0);
+    }
+
+    public int size() {
+        return ratingMap.size();
+    }
+
+    public boolean contains(Integer userId) {
+        return ratingMap.containsKey(userId);
+    }
+
+    /**
+     * 新增或更新用户积分
+     */
+    public void put(Integer userId, int rating) {
+        Integer oldRating = ratingMap.get(userId);
+        if (oldRating != null) {
+            if (oldRating == rating) {
+                return;
+            }
+            remove(userId);
+        }
+        if (rating > top || rating < top - size + 1) {
+            resize(Math.min(rating, top - size + 1), Math.max(rating, top));
+        }
+        List<Integer> bucket = bucketMap.computeIfAbsent(rating, key -> new ArrayList<>());
+        int pos = Collections.binarySearch(bucket, userId);
+        bucket.add(-pos - 1, userId);
+        ratingMap.put(userId, rating);
+        int index = index(rating);
+        add(userTree, index, 1);
+        if (bucket.size() == 1) {
+            add(distinctTree, index, 1);
+        }
+    }
+
+    public void remove(Integer userId) {
+        Integer rating = ratingMap.remove(userId);
+        if (rating == null) {
+            return;
+        }
+        List<Integer> bucket = bucketMap.get(rating);
+        bucket.remove(Collections.binarySearch(bucket, userId));
+        int index = index(rating);
+        add(userTree, index, -1);
+        if (bucket.isEmpty()) {
+            bucketMap.remove(rating);
+            add(distinctTree, index, -1);
+        }
+    }
+
+    public Integer getRating(Integer userId) {
+        return ratingMap.get(userId);
+    }
+
+    /**
+     * 用户名次,不在索引中返回 null
+     */
+    public Integer getRank(Integer userId) {
+        Integer rating = ratingMap.get(userId);
+        if (rating == null) {
+            return null;
+        }
+        return sum(distinctTree, index(rating) - 1) + 1;
+    }
+
+    /**
+     * 按名次取用户 id,O(log n + limit)
+     *
+     * @param offset 从 0 开始
+     * @param limit
+     * @return
+     */
+    public List<Integer> list(int offset, int limit) {
+        if (offset < 0 || limit <= 0 || offset >= ratingMap.size()) {
+            return Collections.emptyList();
+        }
+        //树状数组上二分:找前缀和 <= offset 的最大下标,下一个下标即 offset 所在积分
+        int pos = 0;
+        int remaining = offset;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            if (pos + step <= size && userTree[pos + step] <= remaining) {
+                pos += step;
+                remaining -= userTree[pos];
+            }
+        }
+        int rating = top - pos;
+        List<Integer> idList = new ArrayList<>(limit);
+        int skip = remaining;
+        for (List<Integer> bucket : bucketMap.tailMap(rating, true).values()) {
+            for (int i = skip; i < bucket.size() && idList.size() < limit; i++) {
+                idList.add(bucket.get(i));
+            }
+            if (idList.size() >= limit) {
+                break;
+            }
+            skip = 0;
+        }
+        return idList;
+    }
+
+    /**
+     * 按名次顺序取满足条件的用户 id,取够 offset + limit 个即停止
+     *
+     * @param filter
+     * @param offset 满足条件的用户中从 0 开始的位置
+     * @param limit
+     * @return
+     */
+    public List<Integer> list(IntPredicate filter, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Integer> idList = new ArrayList<>(limit);
+        int skip = offset;
+        for (List<Integer> bucket : bucketMap.values()) {
+            for (Integer userId : bucket) {
+                if (filter.test(userId) && skip-- <= 0) {
+                    idList.add(userId);
+                    if (idList.size() >= limit) {
+                        return idList;
+                    }
+                }
+            }
+        }
+        return idList;
+    }
+
+    private int index(int rating) {
+        return top - rating + 1;
+    }
+
+    /**
+     * 按新的值域 [low, high] 重建两棵树
+     */
+    private void resize(int low, int high) {
+        top = high + PADDING;
+        size = top - (low - PADDING) + 1;
+        userTree = new int[size + 1];
+        distinctTree = new int[size + 1];
+        for (Map.Entry<Integer, List<Integer>> entry : bucketMap.entrySet()) {
+            int index = index(entry.getKey());
+            userTree[index] += entry.getValue().size();
+            distinctTree[index] += 1;
+        }
+        //线性建树
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                userTree[parent] += userTree[i];
+                distinctTree[parent] += distinctTree[i];
+            }
+        }
+    }
+
+    private void add(int[] tree, int index, int delta) {
+        for (int i = index; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int sum(int[] tree, int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
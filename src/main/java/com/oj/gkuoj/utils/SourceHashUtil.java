@@ -0,0 +1,37 @@
+package com.oj.gkuoj.utils;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 提交代码指纹
+ *
+ * @author m969130721@163.com
+ * @date 19-3-26 下午9:02
+ */
+public class SourceHashUtil {
+
+    /**
+     * 摘要格式版本,规范化规则变化时修改,旧指纹不再与新提交相同
+     */
+    private static final String VERSION = "2";
+
+    /**
+     * 只统一换行符(\r\n、\r 转为 \n)后与题目、语言一起取摘要
+     * 不去掉任何空白:多行字符串、heredoc 中的空白属于程序输出,只差空白的两份代码判题结果可能不同(AC 与 PE)
+     *
+     * @param sourceCode
+     * @param problemId
+     * @param type
+     * @return 32位小写十六进制
+     */
+    public static String fingerprint(String sourceCode, Integer problemId, String type) {
+        String normalized = sourceCode.replace("\r\n", "\n").replace('\r', '\n');
+        StringBuilder builder = new StringBuilder(normalized.length() + 32);
+        builder.append(VERSION).append('\u0000').append(problemId).append('\u0000').append(type).append('\u0000')
+                .append(normalized);
+        return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
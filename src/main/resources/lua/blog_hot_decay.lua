@@ -0,0 +1,18 @@
+-- 热门帖子分数衰减:按距上次衰减的时间整体乘以 0.5^(经过时间/半衰期),再去掉分数过低的帖子
+-- 衰减系数由经过时间算出,多实例重复执行或漏执行都不影响结果
+-- KEYS[1]: 热度 zset  KEYS[2]: 上次衰减时间  ARGV[1]: 当前时间(ms)  ARGV[2]: 半衰期(ms)  ARGV[3]: 最低分数
+local last = tonumber(redis.call('GET', KEYS[2]))
+if not last then
+    return 0
+end
+local elapsed = tonumber(ARGV[1]) - last
+if elapsed <= 0 then
+    return 0
+end
+local factor = math.pow(0.5, elapsed / tonumber(ARGV[2]))
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('ZUNIONSTORE', KEYS[1], 1, KEYS[1], 'WEIGHTS', string.format('%.17g', factor))
+    redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3])
+end
+redis.call('SET', KEYS[2], ARGV[1])
+return 1
@@ -0,0 +1,8 @@
+-- 帖子浏览计数:同一访客在去重时间内只计一次,计数先累加到 hash,定时批量写回 mysql
+-- KEYS[1]: 待写回计数 hash  KEYS[2]: 访客去重 key(不去重时不传)
+-- ARGV[1]: blogId  ARGV[2]: 去重时间(秒)
+if KEYS[2] and not redis.call('SET', KEYS[2], 1, 'NX', 'EX', ARGV[2]) then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+return 1
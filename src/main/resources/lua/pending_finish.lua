@@ -0,0 +1,11 @@
+-- 写回结束:成功时删除写回中的 hash,释放写回锁(只释放自己持有的)
+-- KEYS[1]: 写回中 hash  KEYS[2]: 写回锁
+-- ARGV[1]: 锁持有者标识  ARGV[2]: 是否写回成功 1/0
+if redis.call('GET', KEYS[2]) ~= ARGV[1] then
+    return 0
+end
+if ARGV[2] == '1' then
+    redis.call('DEL', KEYS[1])
+end
+redis.call('DEL', KEYS[2])
+return 1
@@ -0,0 +1,15 @@
+-- 取出待写回 mysql 的 hash(浏览数、点赞等),多实例同一时间只有一个能取到
+-- KEYS[1]: 待写回 hash  KEYS[2]: 写回中 hash  KEYS[3]: 写回锁
+-- ARGV[1]: 锁持有者标识  ARGV[2]: 锁过期时间(ms)
+if not redis.call('SET', KEYS[3], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return {}
+end
+-- 上次写回失败时写回中的 hash 还在,先重试它;否则把待写回的整体改名,之后的写入进新 hash
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    if redis.call('EXISTS', KEYS[1]) == 0 then
+        redis.call('DEL', KEYS[3])
+        return {}
+    end
+    redis.call('RENAME', KEYS[1], KEYS[2])
+end
+return redis.call('HGETALL', KEYS[2])
@@ -0,0 +1,19 @@
+-- 测评状态写入,判题机上报乱序到达时不让旧状态覆盖新状态
+-- init:入队状态,已有任何状态时不写;progress:判题中/测试点进度,已是最终结果时不写;final:最终结果,去掉测试点进度
+-- KEYS[1]: 状态 hash  ARGV[1]: init/progress/final  ARGV[2]: 过期时间(秒)  ARGV[3..]: field、value 交替
+local mode = ARGV[1]
+if mode == 'init' and redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+if mode == 'progress' and redis.call('HGET', KEYS[1], 'final') == '1' then
+    return 0
+end
+for i = 3, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+if mode == 'final' then
+    redis.call('HDEL', KEYS[1], 'testcaseNum', 'testcaseStatus')
+    redis.call('HSET', KEYS[1], 'final', '1')
+end
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,88 @@
+-- 比赛榜单增量更新,同一个 problem_result 只计一次
+-- KEYS[1]: 排名 zset  KEYS[2]: 用户各题 hash  KEYS[3]: 一血 hash  KEYS[4]: 已计入 problem_result 的 set
+-- ARGV[1]: 赛制 1:OI 2:ACM  ARGV[2]: userId  ARGV[3]: problemId  ARGV[4]: 是否通过 1/0
+-- ARGV[5]: 本次得分  ARGV[6]: 距开赛秒数  ARGV[7]: 每次错误罚时(秒)  ARGV[8]: 是否计入错误次数 1/0
+-- ARGV[9]: problemResultId  ARGV[10]: 过期时间(秒)
+-- 用户 hash 字段:{p}:score 题目最高分 {p}:ac 通过用时 {p}:acId 计入的通过 problemResultId
+--              {p}:wrong 通过前错误次数 {p}:wrongIds 错误提交的 problemResultId(逗号分隔)
+--              score 总分 solved 通过题数 penalty 罚时 last 最后一次提分用时
+if redis.call('SADD', KEYS[4], ARGV[9]) == 0 then
+    return 0
+end
+local rule = tonumber(ARGV[1])
+local userId = ARGV[2]
+local p = ARGV[3]
+local accepted = tonumber(ARGV[4]) == 1
+local score = tonumber(ARGV[5])
+local elapsed = tonumber(ARGV[6])
+local penalty = tonumber(ARGV[7])
+local attempt = tonumber(ARGV[8]) == 1
+local ttl = tonumber(ARGV[10])
+local hash = KEYS[2]
+
+-- ACM:以 problemResultId(提交先后,与 rebuild 按 id 重放一致)为准,判题结果到达顺序不影响
+-- 最早一次通过计入题数和罚时,罚时加上该次通过之前提交的错误次数;之后的提交不再影响
+-- 多个判题机并行时,先提交的错误结果或通过结果可能晚到,按 id 补计
+local id = tonumber(ARGV[9])
+local acId = tonumber(redis.call('HGET', hash, p .. ':acId') or '-1')
+if accepted then
+    if acId < 0 or id < acId then
+        -- 该次通过之前提交的错误次数
+        local wrong = 0
+        for wrongId in string.gmatch(redis.call('HGET', hash, p .. ':wrongIds') or '', '%d+') do
+            if tonumber(wrongId) < id then
+                wrong = wrong + 1
+            end
+        end
+        if acId < 0 then
+            redis.call('HINCRBY', hash, 'solved', 1)
+            redis.call('HINCRBY', hash, 'penalty', elapsed + wrong * penalty)
+        else
+            -- 更早提交的通过晚到,换成这一次
+            local oldAc = tonumber(redis.call('HGET', hash, p .. ':ac'))
+            local oldWrong = tonumber(redis.call('HGET', hash, p .. ':wrong') or '0')
+            redis.call('HINCRBY', hash, 'penalty', (elapsed - oldAc) + (wrong - oldWrong) * penalty)
+        end
+        redis.call('HSET', hash, p .. ':ac', elapsed)
+        redis.call('HSET', hash, p .. ':acId', id)
+        redis.call('HSET', hash, p .. ':wrong', wrong)
+        local first = redis.call('HGET', KEYS[3], p)
+        if not first or elapsed < tonumber(string.match(first, '^(%d+):')) then
+            redis.call('HSET', KEYS[3], p, elapsed .. ':' .. userId)
+        end
+    end
+elseif attempt then
+    -- 记下错误提交的 id,之后晚到的更早通过据此重算错误次数
+    local wrongIds = redis.call('HGET', hash, p .. ':wrongIds')
+    redis.call('HSET', hash, p .. ':wrongIds', wrongIds and (wrongIds .. ',' .. id) or tostring(id))
+    if acId < 0 then
+        redis.call('HINCRBY', hash, p .. ':wrong', 1)
+    elseif id < acId then
+        -- 通过之前提交、通过之后才判完的错误
+        redis.call('HINCRBY', hash, p .. ':wrong', 1)
+        redis.call('HINCRBY', hash, 'penalty', penalty)
+    end
+end
+
+-- OI:每题取最高分
+local best = tonumber(redis.call('HGET', hash, p .. ':score') or '-1')
+if score > best then
+    redis.call('HSET', hash, p .. ':score', score)
+    redis.call('HINCRBY', hash, 'score', score - math.max(best, 0))
+    redis.call('HSET', hash, 'last', elapsed)
+end
+
+-- 排名分:高位为题数/总分,低位为罚时/最后提分用时,越小越靠前
+local total = redis.call('HMGET', hash, 'solved', 'penalty', 'score', 'last')
+local rank
+if rule == 2 then
+    rank = tonumber(total[1] or '0') * 1e10 - tonumber(total[2] or '0')
+else
+    rank = tonumber(total[3] or '0') * 1e10 - tonumber(total[4] or '0')
+end
+redis.call('ZADD', KEYS[1], string.format('%.0f', rank), userId)
+
+for i = 1, #KEYS do
+    redis.call('EXPIRE', KEYS[i], ttl)
+end
+return 1
@@ -0,0 +1,29 @@
+-- 多个令牌桶原子扣减:全部有令牌才一起扣,任一不足则都不扣
+-- KEYS[i]: 桶 key
+-- ARGV[1]: 当前时间(ms),ARGV[2i]: 容量,ARGV[2i+1]: 每秒补充令牌数
+local now = tonumber(ARGV[1])
+local tokens = {}
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[i * 2])
+    local rate = tonumber(ARGV[i * 2 + 1])
+    local bucket = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local left = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if left == nil or ts == nil then
+        left = capacity
+        ts = now
+    end
+    left = math.min(capacity, left + math.max(0, now - ts) * rate / 1000)
+    if left < 1 then
+        return 0
+    end
+    tokens[i] = left
+end
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[i * 2])
+    local rate = tonumber(ARGV[i * 2 + 1])
+    redis.call('HMSET', KEYS[i], 'tokens', tokens[i] - 1, 'ts', now)
+    -- 桶补满后即可过期
+    redis.call('PEXPIRE', KEYS[i], math.ceil(capacity / rate * 1000) + 1000)
+end
+return 1
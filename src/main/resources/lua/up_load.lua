@@ -0,0 +1,18 @@
+-- 从 mysql 加载点赞用户集合,集合已存在时不覆盖(可能有尚未写回的点赞)
+-- ARGV[2] 为 1 时强制覆盖,用于对账修复;版本号与读取 mysql 前不同(期间有点赞切换)时不覆盖
+-- KEYS[1]: 点赞用户集合  KEYS[2]: 版本号
+-- ARGV[1]: 过期时间(秒)  ARGV[2]: 是否覆盖 1/0  ARGV[3]: 读取 mysql 前的版本号  ARGV[4..]: userId
+if ARGV[2] ~= '1' then
+    if redis.call('EXISTS', KEYS[1]) == 1 then
+        return 0
+    end
+elseif tonumber(redis.call('GET', KEYS[2]) or '0') ~= tonumber(ARGV[3]) then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+redis.call('SADD', KEYS[1], '_')
+for i = 4, #ARGV do
+    redis.call('SADD', KEYS[1], ARGV[i])
+end
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return 1
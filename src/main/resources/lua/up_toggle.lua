@@ -0,0 +1,19 @@
+-- 点赞切换:已赞则取消,未赞则点赞,返回 {点赞状态 1/0, 点赞数};集合未加载时返回 {-1}
+-- 集合中 '_' 为已加载标记,不计入点赞数
+-- 版本号加一,对账据此判断读取 mysql 期间是否有切换
+-- KEYS[1]: 点赞用户集合  KEYS[2]: 待写回 hash  KEYS[3]: 版本号  ARGV[1]: userId  ARGV[2]: 待写回 field  ARGV[3]: 过期时间(秒)
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return {-1}
+end
+local status
+if redis.call('SREM', KEYS[1], ARGV[1]) == 1 then
+    status = 0
+else
+    redis.call('SADD', KEYS[1], ARGV[1])
+    status = 1
+end
+redis.call('HSET', KEYS[2], ARGV[2], status)
+redis.call('INCR', KEYS[3])
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+redis.call('EXPIRE', KEYS[3], ARGV[3])
+return {status, redis.call('SCARD', KEYS[1]) - 1}
@@ -0,0 +1,13 @@
+-- 记录一次用户排名/昵称变更:版本号加一,变更集合中该用户的分数更新为新版本号
+-- 集合超过上限时删除最旧的记录,并记下删除到的版本号,落后于此的实例需要全量重建
+-- KEYS[1]: 版本号  KEYS[2]: 变更 zset(member 为 userId,score 为版本号)  KEYS[3]: 已删除到的版本号
+-- ARGV[1]: userId  ARGV[2]: 变更集合上限
+local version = redis.call('INCR', KEYS[1])
+redis.call('ZADD', KEYS[2], version, ARGV[1])
+local overflow = redis.call('ZCARD', KEYS[2]) - tonumber(ARGV[2])
+if overflow > 0 then
+    local last = redis.call('ZRANGE', KEYS[2], overflow - 1, overflow - 1, 'WITHSCORES')
+    redis.call('ZREMRANGEBYRANK', KEYS[2], 0, overflow - 1)
+    redis.call('SET', KEYS[3], last[2])
+end
+return version
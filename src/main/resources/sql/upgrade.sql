@@ -0,0 +1,90 @@
+-- 数据库变更脚本,按顺序执行
+
+-- 判题提交 outbox,与 QUEUING 的 problem_result 同一事务写入,由 JudgeOutboxRelay 异步批量投递
+create table if not exists judge_outbox (
+  id          int(11)      not null auto_increment,
+  pro_re_id   int(11)      not null comment 'problem_result.id',
+  run_num     varchar(64)  not null,
+  payload     mediumtext   not null comment '提交内容json',
+  status      tinyint(4)   not null default 0 comment '0 未投递 1 已投递',
+  create_time datetime     not null default current_timestamp,
+  update_time datetime     not null default current_timestamp on update current_timestamp,
+  primary key (id),
+  key idx_status_id (status, id)
+) engine = InnoDB default charset = utf8mb4;
+
+-- 提交代码指纹,相同代码复用已有判题结果
+alter table problem_result add column source_hash char(32) null comment '代码指纹' after source_code;
+alter table problem_result add index idx_problem_id_source_hash (problem_id, source_hash);
+
+-- 判题优先级:outbox 按排序键投递(入队时间 + 优先级让步时间)
+alter table judge_outbox add column sort_key bigint(20) not null default 0 comment '投递排序键' after status;
+alter table judge_outbox drop index idx_status_id, add index idx_status_sort_key (status, sort_key);
+
+-- 测试点汇总写入 problem_result,提交列表不再逐条查询 testcase_result
+alter table problem_result
+  add column ac_count int(11) null comment '通过测试点数' after memory,
+  add column testcase_count int(11) null comment '测试点数' after ac_count,
+  add column score int(11) null comment '得分(0-100)' after testcase_count;
+update problem_result pr
+left join (select pro_re_id, count(id) testcase_count, sum(status = 1) ac_count
+      from testcase_result group by pro_re_id) t on t.pro_re_id = pr.id
+set pr.testcase_count = ifnull(t.testcase_count, 0),
+    pr.ac_count = ifnull(t.ac_count, 0),
+    pr.score = ifnull(floor(t.ac_count * 100 / t.testcase_count), 0);
+
+-- 比赛赛制,榜单按赛制排名
+alter table competition add column rule tinyint(4) not null default 1 comment '赛制 1:OI 2:ACM' after password;
+
+-- 用户做题状态分组查询(bitmap 冷加载)走覆盖索引
+alter table problem_result add index idx_user_id_problem_id_status (user_id, problem_id, status);
+
+-- 推荐题目索引按 id 增量读取通过记录
+alter table problem_result add index idx_status (status);
+
+-- 提交列表游标翻页按 (create_time, id) 倒序
+alter table problem_result
+  add index idx_create_time (create_time),
+  add index idx_problem_id_create_time (problem_id, create_time);
+
+-- 点赞异步批量写回按 (type, type_id, user_id) 插入或更新,先清理重复记录
+delete u1 from up u1
+join up u2 on u2.type = u1.type and u2.type_id = u1.type_id and u2.user_id = u1.user_id and u2.id > u1.id;
+alter table up add unique index uk_type_type_id_user_id (type, type_id, user_id);
+
+-- 帖子列表不再关联评论表、点赞表分组统计,回复数、点赞数、最后回复时间冗余到 blog
+alter table blog
+  add column reply_count int(11) not null default 0 comment '回复数' after view_count,
+  add column up_count int(11) not null default 0 comment '点赞数' after reply_count,
+  add column last_reply_time datetime null comment '最后回复时间' after up_count;
+update blog b
+join (select blog_id, count(id) reply_count, max(create_time) last_reply_time
+      from blog_comment group by blog_id) c on c.blog_id = b.id
+set b.reply_count = c.reply_count,
+    b.last_reply_time = c.last_reply_time;
+update blog b
+join (select type_id, count(id) up_count from up where type = 0 and status = true group by type_id) u on u.type_id = b.id
+set b.up_count = u.up_count;
+alter table blog
+  add index idx_create_time (create_time),
+  add index idx_last_reply_time (last_reply_time, create_time),
+  add index idx_bc_id_create_time (bc_id, create_time),
+  add index idx_hot (view_count, reply_count, up_count, create_time, last_reply_time);
+alter table blog_comment add index idx_blog_id_create_time (blog_id, create_time);
+
+-- 相同代码复用判题结果时,时间、内存限制改过之后的结果不再复用
+alter table problem add column limit_update_time datetime null comment '时间、内存限制最后修改时间' after memory;
+
+-- 推荐题目索引改为按 (update_time, id) 增量读取通过记录,早先提交、后来才通过的记录也能读到
+alter table problem_result
+  drop index idx_status,
+  add index idx_status_update_time (status, update_time, id);
+
+-- 判题计数按提交去重:先以默认值 1 标记存量记录(已由判题机计过),新记录默认 0,计数前认领
+alter table problem_result add column counted tinyint(4) not null default 1 comment '是否已计入判题计数' after status;
+alter table problem_result alter column counted set default 0;
+
+-- outbox 按节点认领后投递:claim 时写入 owner 并置为投递中,多个节点不会重复投递同一提交
+alter table judge_outbox
+  modify column status tinyint(4) not null default 0 comment '0 未投递 1 已投递 2 投递中',
+  add column owner varchar(36) null comment '认领投递的节点' after status;
@@ -113,9 +113,13 @@ function submit(problemName, compId) {
                 text: html,
                 timeout: 'keep'
             });
-            var problemResultNowInterval = window.setInterval(function () {
-                problemResultNow(runNum, problemResultNowInterval)
-            }, 500);
+            if (window.EventSource) {
+                subscribeProblemResult(runNum);
+            } else {
+                var problemResultNowInterval = window.setInterval(function () {
+                    problemResultNow(runNum, problemResultNowInterval)
+                }, 500);
+            }
         } else {
             $.message({
                 message: resp.msg,
@@ -125,6 +129,57 @@ function submit(problemName, compId) {
     });
 }
 
+/**
+ * 订阅题目测评结果(SSE),由服务端推送状态变化
+ * @param runNum
+ */
+function subscribeProblemResult(runNum) {
+    var source = new EventSource("problemResult/subscribe?runNum=" + encodeURIComponent(runNum));
+    source.addEventListener("status", function (event) {
+        var data = JSON.parse(event.data);
+        if (renderProblemResult(runNum, data)) {
+            source.close();
+        }
+    });
+    source.onerror = function () {
+        //连接断开,退回轮询
+        source.close();
+        var problemResultNowInterval = window.setInterval(function () {
+            problemResultNow(runNum, problemResultNowInterval)
+        }, 500);
+    };
+}
+
+/**
+ * 渲染测评状态
+ * @param runNum
+ * @param data
+ * @returns {boolean} 是否为最终结果
+ */
+function renderProblemResult(runNum, data) {
+    if (data.testcaseNum == null && data.status != 0 && data.status != 8 && data.status != 9 && data.status != 200) {
+        var color = getColorByStatus(data.status);
+        var str = getStrByStatus(data.status);
+        var usedTime = data.time;
+        var usedMemory = data.memory;
+        var problemResultId = data.id;
+        var href = "/problemResult/problemResultDetailPage?problemResultId=" + problemResultId;
+        var html = "<a class='mr-3 btn-sm text-white' style='background-color: " + color + "'>" + str + "</a>" +
+            "<a class='btn-success mr-3 btn-sm text-white'>" + usedTime + "ms</a>" +
+            "<a class='btn-success mr-3 btn-sm text-white'>" + usedMemory + "KB</a>" +
+            "<a href=" + href + " class='btn btn-info btn-sm text-white'>查看详情</a>";
+
+        $("#" + runNum + "").html(html);
+        return true;
+    }
+    var str = getStrByStatus(data.status);
+    if (data.testcaseNum != null) {
+        str = str + " #" + data.testcaseNum;
+    }
+    $("#" + runNum + "-Str").html(str);
+    return false;
+}
+
 /**
  * 拉取题目测评结果
  * @param runNum
@@ -133,23 +188,8 @@ function submit(problemName, compId) {
 function problemResultNow(runNum, problemResultNowInterval) {
     $.post("problemResult/problemResultNow", {"runNum": runNum}, function (resp) {
         if (resp.status == 200) {
-            if (resp.data.status != 0 && resp.data.status != 8 && resp.data.status != 9) {
+            if (renderProblemResult(runNum, resp.data)) {
                 window.clearInterval(problemResultNowInterval);
-                var color = getColorByStatus(resp.data.status);
-                var str = getStrByStatus(resp.data.status);
-                var usedTime = resp.data.time;
-                var usedMemory = resp.data.memory;
-                var problemResultId = resp.data.id;
-                var href = "/problemResult/problemResultDetailPage?problemResultId=" + problemResultId;
-                var html = "<a class='mr-3 btn-sm text-white' style='background-color: " + color + "'>" + str + "</a>" +
-                    "<a class='btn-success mr-3 btn-sm text-white'>" + usedTime + "ms</a>" +
-                    "<a class='btn-success mr-3 btn-sm text-white'>" + usedMemory + "KB</a>" +
-                    "<a href=" + href + " class='btn btn-info btn-sm text-white'>查看详情</a>";
-
-                $("#" + runNum + "").html(html);
-            } else {
-                var str = getStrByStatus(resp.data.status);
-                $("#" + runNum + "-Str").html(str);
             }
         } else {
             window.clearInterval(problemResultNowInterval);
@@ -0,0 +1,55 @@
+package com.oj.gkuoj.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author m969130721@163.com
+ * @date 19-3-30 下午3:00
+ */
+public class LruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        //访问 1 之后 2 最久未用
+        assertEquals("a", cache.get(1));
+        cache.put(3, "c");
+        assertEquals(2, cache.size());
+        assertNull(cache.get(2));
+        assertEquals("a", cache.get(1));
+        assertEquals("c", cache.get(3));
+    }
+
+    @Test
+    public void putExistingKeyDoesNotEvict() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(1, "a2");
+        assertEquals(2, cache.size());
+        assertEquals("a2", cache.get(1));
+        //重新写入也算访问,再放入新值时淘汰 2
+        cache.put(3, "c");
+        assertNull(cache.get(2));
+        assertEquals("a2", cache.get(1));
+    }
+
+    @Test
+    public void removeAndClear() {
+        LruCache<Integer, String> cache = new LruCache<>(3);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.remove(1);
+        cache.remove(9);
+        assertNull(cache.get(1));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(2));
+    }
+}
@@ -0,0 +1,71 @@
+package com.oj.gkuoj.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author m969130721@163.com
+ * @date 19-3-30 上午10:40
+ */
+public class NameIndexTest {
+
+    private NameIndex nameIndex;
+
+    @Before
+    public void setUp() {
+        nameIndex = new NameIndex();
+        nameIndex.put(3, "Alice");
+        nameIndex.put(1, "alicia");
+        nameIndex.put(2, "Bob");
+        nameIndex.put(5, "bcab");
+        nameIndex.put(4, "abcd");
+        nameIndex.put(6, "张三丰");
+    }
+
+    @Test
+    public void searchIgnoresCaseAndReturnsSortedIds() {
+        assertArrayEquals(new int[]{1, 3}, nameIndex.search("ALI"));
+        assertArrayEquals(new int[]{1, 3}, nameIndex.search("li"));
+        assertArrayEquals(new int[]{2}, nameIndex.search("O"));
+        assertArrayEquals(new int[]{6}, nameIndex.search("三丰"));
+    }
+
+    @Test
+    public void longKeywordIsVerifiedAgainstName() {
+        //bcab 含有 abc 的全部 bigram(ab、bc),但不包含 abc
+        assertArrayEquals(new int[]{4}, nameIndex.search("abc"));
+        assertArrayEquals(new int[]{4}, nameIndex.search("abcd"));
+        assertArrayEquals(new int[0], nameIndex.search("abcde"));
+    }
+
+    @Test
+    public void missingKeywordReturnsEmpty() {
+        assertArrayEquals(new int[0], nameIndex.search(null));
+        assertArrayEquals(new int[0], nameIndex.search(""));
+        assertArrayEquals(new int[0], nameIndex.search("z"));
+        assertArrayEquals(new int[0], nameIndex.search("ob b"));
+    }
+
+    @Test
+    public void renameAndRemoveUpdatePostings() {
+        nameIndex.put(2, "Bobby");
+        assertArrayEquals(new int[]{2}, nameIndex.search("bby"));
+        nameIndex.put(2, "carol");
+        assertArrayEquals(new int[0], nameIndex.search("bob"));
+        assertArrayEquals(new int[]{2}, nameIndex.search("rol"));
+        nameIndex.remove(3);
+        assertArrayEquals(new int[]{1}, nameIndex.search("ali"));
+        //重复删除无影响
+        nameIndex.remove(3);
+        assertArrayEquals(new int[]{1}, nameIndex.search("ali"));
+    }
+
+    @Test
+    public void searchResultIsACopy() {
+        int[] ids = nameIndex.search("a");
+        ids[0] = -1;
+        assertArrayEquals(new int[]{1, 3, 4, 5}, nameIndex.search("a"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.oj.gkuoj.utils;
+
+import com.oj.gkuoj.response.ProblemVO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author m969130721@163.com
+ * @date 19-3-30 上午11:20
+ */
+public class ProblemCatalogTest {
+
+    private ProblemCatalog catalog;
+
+    @Before
+    public void setUp() {
+        catalog = new ProblemCatalog(Arrays.asList(
+                problem(12, "Graph", 3, null, 0, null, null),
+                problem(2, "Two Sum", 2, "2", 0, 80, 3),
+                problem(1, "A+B Problem", 1, "1,2", 0, 50, 1),
+                problem(4, "Tree Sum", 1, "", 0, 80, 4),
+                problem(3, "Hidden Tree", 1, "3", 1, 10, 2)));
+    }
+
+    @Test
+    public void filterByKeyword() {
+        assertEquals(Arrays.asList(2, 4), page(catalog.filter("SUM", -1, null), null));
+        assertEquals(Arrays.asList(1, 12), page(catalog.filter("a", -1, null), null));
+        assertEquals(Arrays.asList(3, 4), page(catalog.filter(" tree ", -1, null), null));
+        assertEquals(Collections.emptyList(), page(catalog.filter("sum tree", -1, null), null));
+    }
+
+    @Test
+    public void filterByIdKeyword() {
+        assertEquals(Arrays.asList(1), page(catalog.filter("1", -1, null), null));
+        assertEquals(Arrays.asList(12), page(catalog.filter("12", -1, null), null));
+        assertEquals(Collections.emptyList(), page(catalog.filter("99", -1, null), null));
+    }
+
+    @Test
+    public void filterByLevelAndTags() {
+        assertEquals(Arrays.asList(1, 3, 4), page(catalog.filter(null, 1, null), null));
+        assertEquals(Collections.emptyList(), page(catalog.filter(null, 9, null), null));
+        //标签任一命中
+        assertEquals(Arrays.asList(1, 2), page(catalog.filter(null, -1, Arrays.asList(2)), null));
+        assertEquals(Arrays.asList(1, 2, 3), page(catalog.filter(null, -1, Arrays.asList(2, 3)), null));
+        assertEquals(Collections.emptyList(), page(catalog.filter(null, -1, Collections.emptyList()), null));
+        assertEquals(Arrays.asList(3), page(catalog.filter("tree", 1, Arrays.asList(3)), null));
+    }
+
+    @Test
+    public void pageBySort() {
+        BitSet all = catalog.filter(null, -1, null);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 12), page(all, null));
+        //最新,没有创建时间的排最后
+        assertEquals(Arrays.asList(4, 2, 3, 1, 12), page(all, 1));
+        //通过数,相同时 id 升序
+        assertEquals(Arrays.asList(2, 4, 1, 3, 12), page(all, 2));
+        assertEquals(Arrays.asList(4, 1, 3), page(catalog.filter(null, 1, null), 2));
+    }
+
+    @Test
+    public void pageByOffset() {
+        BitSet all = catalog.filter(null, -1, null);
+        assertEquals(Arrays.asList(4, 1), ids(catalog.page(all, 2, 1, 2)));
+        assertEquals(Arrays.asList(3, 4), ids(catalog.page(all, null, 2, 2)));
+        assertEquals(Collections.emptyList(), ids(catalog.page(all, null, 5, 2)));
+        assertEquals(Collections.emptyList(), ids(catalog.page(all, null, 0, 0)));
+    }
+
+    @Test
+    public void pageReturnsCopies() {
+        BitSet all = catalog.filter(null, -1, null);
+        catalog.page(all, null, 0, 1).get(0).setUserStatus(1);
+        ProblemVO problemVO = catalog.page(all, null, 0, 1).get(0);
+        assertNull(problemVO.getUserStatus());
+        assertEquals("1,2", problemVO.getTagIds());
+        assertEquals(5, catalog.size());
+    }
+
+    @Test
+    public void listVisibleSkipsHidden() {
+        assertEquals(Arrays.asList(1, 2, 4, 12), ids(catalog.listVisible()));
+        assertEquals(Arrays.asList(4, 1), ids(catalog.listVisibleByIds(Arrays.asList(4, 3, 99, 1))));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(Arrays.asList(1, 2, 4, 12).contains(catalog.randomId()));
+        }
+        assertNull(new ProblemCatalog(Collections.emptyList()).randomId());
+    }
+
+    @Test
+    public void sampleSameLevelExcludesSelfAndHidden() {
+        assertEquals(Arrays.asList(4), ids(catalog.sampleSameLevel(1, 5)));
+        assertEquals(Arrays.asList(1), ids(catalog.sampleSameLevel(4, 1)));
+        //隐藏题目自身不在候选中,同难度可见题目都可取
+        assertEquals(new HashSet<>(Arrays.asList(1, 4)), new HashSet<>(ids(catalog.sampleSameLevel(3, 5))));
+        assertEquals(Collections.emptyList(), ids(catalog.sampleSameLevel(12, 3)));
+        assertEquals(Collections.emptyList(), ids(catalog.sampleSameLevel(99, 3)));
+        assertEquals(Collections.emptyList(), ids(catalog.sampleSameLevel(1, 0)));
+    }
+
+    @Test
+    public void sampleSameLevelIsDistinctAndCoversCandidates() {
+        List<ProblemVO> problemList = new ArrayList<>();
+        for (int id = 1; id <= 20; id++) {
+            problemList.add(problem(id, "p" + id, 5, null, id % 4 == 0 ? 1 : 0, null, null));
+        }
+        ProblemCatalog levelCatalog = new ProblemCatalog(problemList);
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            List<Integer> idList = ids(levelCatalog.sampleSameLevel(10, 5));
+            assertEquals(5, idList.size());
+            assertEquals(5, new HashSet<>(idList).size());
+            assertFalse(idList.contains(10));
+            for (Integer id : idList) {
+                assertTrue(id % 4 != 0);
+            }
+            seen.addAll(idList);
+        }
+        //15 道可见题目去掉自身
+        assertEquals(14, seen.size());
+    }
+
+    private static ProblemVO problem(Integer id, String name, Integer level, String tagIds, Integer flag,
+                                     Integer acCount, Integer createSecond) {
+        ProblemVO problemVO = new ProblemVO(id, name, null, level, null, acCount, null, flag,
+                createSecond == null ? null : new Date(createSecond * 1000L), null, null);
+        problemVO.setTagIds(tagIds);
+        return problemVO;
+    }
+
+    private static List<Integer> ids(List<ProblemVO> problemList) {
+        List<Integer> idList = new ArrayList<>(problemList.size());
+        for (ProblemVO problemVO : problemList) {
+            idList.add(problemVO.getId());
+        }
+        return idList;
+    }
+
+    private List<Integer> page(BitSet matched, Integer sort) {
+        return ids(catalog.page(matched, sort, 0, 100));
+    }
+}
@@ -0,0 +1,92 @@
+package com.oj.gkuoj.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author m969130721@163.com
+ * @date 19-3-30 下午2:10
+ */
+public class ProblemSimilarityIndexTest {
+
+    private ProblemSimilarityIndex similarityIndex;
+
+    private Map<Integer, int[]> problemTagMap;
+
+    @Before
+    public void setUp() {
+        problemTagMap = new HashMap<>();
+        problemTagMap.put(1, new int[]{1, 2});
+        problemTagMap.put(2, new int[]{1, 2});
+        problemTagMap.put(3, new int[]{1});
+        problemTagMap.put(4, new int[0]);
+        problemTagMap.put(5, new int[]{3});
+        similarityIndex = new ProblemSimilarityIndex(0.5);
+        similarityIndex.setProblemTags(problemTagMap);
+    }
+
+    @Test
+    public void topKByTagJaccard() {
+        //2:0.5 * 2/2,3:0.5 * 1/2,4、5 没有共同标签也没有共同通过,不是候选
+        assertArrayEquals(new int[]{2, 3}, similarityIndex.topK(1, 10));
+        //1、2 与 3 的得分相同,按 id 升序
+        assertArrayEquals(new int[]{1, 2}, similarityIndex.topK(3, 10));
+        assertArrayEquals(new int[0], similarityIndex.topK(4, 10));
+    }
+
+    @Test
+    public void topKCombinesCoSolve() {
+        similarityIndex.addSolved(10, 1);
+        similarityIndex.addSolved(10, 4);
+        similarityIndex.addSolved(11, 1);
+        similarityIndex.addSolved(11, 4);
+        similarityIndex.addSolved(12, 1);
+        similarityIndex.addSolved(12, 5);
+        //2:0.5,4:0.5 * 2/sqrt(3 * 2)≈0.41,5:0.5 * 1/sqrt(3)≈0.29,3:0.25
+        assertArrayEquals(new int[]{2, 4, 5, 3}, similarityIndex.topK(1, 10));
+        assertArrayEquals(new int[]{2, 4}, similarityIndex.topK(1, 2));
+        assertArrayEquals(new int[]{1}, similarityIndex.topK(4, 10));
+    }
+
+    @Test
+    public void invisibleProblemIsNeverSuggested() {
+        similarityIndex.addSolved(10, 1);
+        similarityIndex.addSolved(10, 99);
+        assertArrayEquals(new int[]{2, 3}, similarityIndex.topK(1, 10));
+        assertArrayEquals(new int[0], similarityIndex.topK(99, 10));
+        assertArrayEquals(new int[0], similarityIndex.topK(1, 0));
+    }
+
+    @Test
+    public void addSolvedIsIdempotent() {
+        assertTrue(similarityIndex.addSolved(10, 1));
+        assertFalse(similarityIndex.addSolved(10, 1));
+        assertTrue(similarityIndex.addSolved(10, 4));
+        assertEquals(new HashSet<>(Arrays.asList(1, 4)), similarityIndex.listSolved(10));
+        assertEquals(Collections.emptySet(), similarityIndex.listSolved(11));
+    }
+
+    @Test
+    public void setProblemTagsReplacesCandidates() {
+        assertTrue(similarityIndex.sameProblemTags(new HashMap<>(problemTagMap)));
+        Map<Integer, int[]> newProblemTagMap = new HashMap<>(problemTagMap);
+        newProblemTagMap.remove(2);
+        newProblemTagMap.put(3, new int[]{1, 2});
+        assertFalse(similarityIndex.sameProblemTags(newProblemTagMap));
+        similarityIndex.setProblemTags(newProblemTagMap);
+        assertTrue(similarityIndex.sameProblemTags(newProblemTagMap));
+        assertArrayEquals(new int[]{3}, similarityIndex.topK(1, 10));
+        assertEquals(new HashSet<>(Arrays.asList(1, 3, 4, 5)), similarityIndex.problemIds());
+    }
+}
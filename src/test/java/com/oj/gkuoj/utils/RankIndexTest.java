@@ -0,0 +1,130 @@
+package com.oj.gkuoj.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author m969130721@163.com
+ * @date 19-3-30 上午10:10
+ */
+public class RankIndexTest {
+
+    private RankIndex rankIndex;
+
+    @Before
+    public void setUp() {
+        rankIndex = new RankIndex();
+        rankIndex.put(1, 1500);
+        rankIndex.put(2, 1600);
+        rankIndex.put(3, 1500);
+        rankIndex.put(4, 1400);
+        rankIndex.put(5, 1600);
+    }
+
+    @Test
+    public void rankCountsDistinctHigherRatings() {
+        assertEquals(Integer.valueOf(1), rankIndex.getRank(2));
+        assertEquals(Integer.valueOf(1), rankIndex.getRank(5));
+        assertEquals(Integer.valueOf(2), rankIndex.getRank(1));
+        assertEquals(Integer.valueOf(2), rankIndex.getRank(3));
+        assertEquals(Integer.valueOf(3), rankIndex.getRank(4));
+        assertNull(rankIndex.getRank(6));
+    }
+
+    @Test
+    public void listOrdersByRatingThenId() {
+        assertEquals(Arrays.asList(2, 5, 1, 3, 4), rankIndex.list(0, 10));
+        assertEquals(Arrays.asList(5, 1), rankIndex.list(1, 2));
+        assertEquals(Arrays.asList(3, 4), rankIndex.list(3, 5));
+        assertEquals(Collections.emptyList(), rankIndex.list(5, 1));
+        assertEquals(Collections.emptyList(), rankIndex.list(0, 0));
+    }
+
+    @Test
+    public void putMovesUserToNewRating() {
+        rankIndex.put(4, 1700);
+        assertEquals(Integer.valueOf(1700), rankIndex.getRating(4));
+        assertEquals(Integer.valueOf(1), rankIndex.getRank(4));
+        assertEquals(Integer.valueOf(2), rankIndex.getRank(2));
+        assertEquals(Arrays.asList(4, 2, 5, 1, 3), rankIndex.list(0, 10));
+        assertEquals(5, rankIndex.size());
+    }
+
+    @Test
+    public void removeDropsUserAndEmptyRating() {
+        rankIndex.remove(2);
+        rankIndex.remove(5);
+        assertFalse(rankIndex.contains(2));
+        assertEquals(3, rankIndex.size());
+        assertEquals(Integer.valueOf(1), rankIndex.getRank(1));
+        assertEquals(Integer.valueOf(2), rankIndex.getRank(4));
+        assertEquals(Arrays.asList(1, 3, 4), rankIndex.list(0, 10));
+        //重复删除无影响
+        rankIndex.remove(2);
+        assertEquals(3, rankIndex.size());
+    }
+
+    @Test
+    public void ratingOutsideRangeResizes() {
+        rankIndex.put(6, 100000);
+        rankIndex.put(7, -100000);
+        assertTrue(rankIndex.contains(7));
+        assertEquals(Integer.valueOf(1), rankIndex.getRank(6));
+        assertEquals(Integer.valueOf(2), rankIndex.getRank(2));
+        assertEquals(Integer.valueOf(5), rankIndex.getRank(7));
+        assertEquals(Arrays.asList(6, 2, 5, 1, 3, 4, 7), rankIndex.list(0, 10));
+        assertEquals(Arrays.asList(4, 7), rankIndex.list(5, 10));
+    }
+
+    @Test
+    public void filteredListKeepsRankOrder() {
+        assertEquals(Arrays.asList(5, 1, 3), rankIndex.list(userId -> userId % 2 == 1, 0, 10));
+        assertEquals(Arrays.asList(1), rankIndex.list(userId -> userId % 2 == 1, 1, 1));
+        assertEquals(Arrays.asList(4), rankIndex.list(userId -> userId % 2 == 0, 1, 10));
+        assertEquals(Collections.emptyList(), rankIndex.list(userId -> userId % 2 == 0, 2, 10));
+        assertEquals(Collections.emptyList(), rankIndex.list(userId -> true, -1, 10));
+    }
+
+    @Test
+    public void matchesSortedListAfterRandomUpdates() {
+        Random random = new Random(20190330L);
+        Map<Integer, Integer> ratingMap = new HashMap<>();
+        RankIndex index = new RankIndex();
+        for (int i = 0; i < 2000; i++) {
+            int userId = random.nextInt(300);
+            if (random.nextInt(5) == 0) {
+                index.remove(userId);
+                ratingMap.remove(userId);
+            } else {
+                int rating = random.nextInt(3000);
+                index.put(userId, rating);
+                ratingMap.put(userId, rating);
+            }
+        }
+        List<Integer> expected = new ArrayList<>(ratingMap.keySet());
+        expected.sort(Comparator.comparing((Integer userId) -> ratingMap.get(userId), Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+        assertEquals(expected.size(), index.size());
+        for (int offset = 0; offset < expected.size(); offset += 7) {
+            assertEquals(expected.subList(offset, Math.min(offset + 20, expected.size())), index.list(offset, 20));
+        }
+        for (Integer userId : expected) {
+            long higher = ratingMap.values().stream().filter(rating -> rating > ratingMap.get(userId)).distinct().count();
+            assertEquals(Integer.valueOf((int) higher + 1), index.getRank(userId));
+        }
+    }
+}